@@ -1,5 +1,6 @@
 package com.socraticjava;
 
+import com.socraticjava.content.EpochRegistry;
 import com.socraticjava.model.Epoch;
 import com.socraticjava.model.Lesson;
 import com.socraticjava.model.Progress;
@@ -17,6 +18,7 @@ public class SocraticJavaApp extends Application {
     private LessonService lessonService;
     private ProgressTracker progressTracker;
     private Progress progress;
+    private MainWindow mainWindow;
 
     @Override
     public void start(Stage primaryStage) {
@@ -31,7 +33,7 @@ public class SocraticJavaApp extends Application {
         Lesson startingLesson = determineStartingLesson();
 
         // Create and show main window
-        MainWindow mainWindow = new MainWindow(
+        mainWindow = new MainWindow(
             primaryStage,
             lessonService,
             progressTracker,
@@ -65,14 +67,21 @@ public class SocraticJavaApp extends Application {
     }
 
     /**
-     * Save progress on shutdown
+     * Save progress on shutdown, flushing any pending background save, and
+     * stop the grading worker JVMs
      */
     @Override
     public void stop() {
         progressTracker.saveProgress(progress);
+        progressTracker.close();
+        if (mainWindow != null) {
+            mainWindow.close();
+        }
     }
 
     public static void main(String[] args) {
+        // Build course content while the JavaFX toolkit starts up
+        EpochRegistry.preloadInBackground();
         launch(args);
     }
 }
@@ -0,0 +1,513 @@
+package com.socraticjava.content;
+
+import com.socraticjava.model.Challenge;
+import com.socraticjava.model.ChallengeType;
+import com.socraticjava.model.Epoch;
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+import com.socraticjava.model.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lesson content exported into one indexed binary file and read back through a
+ * memory mapping
+ *
+ * Layout (version 3), all integers big-endian, strings as an int byte length
+ * (-1 = null) followed by UTF-8:
+ * <pre>
+ *   "SJB" version
+ *   int lesson count, int record area offset, int index offset, int catalog offset
+ *   long content stamp                 identifies the compiled content it was exported from
+ *   section texts                      raw UTF-8, referenced by offset and length
+ *   lesson records:
+ *     id, title, int estimatedMinutes
+ *     int section count, then per section: heading, byte type, int offset, int length
+ *     int challenge count, then per challenge:
+ *       id, title, description, byte type, starterCode, methodSignature, correctAnswer
+ *       int option count, then each option
+ *       int test count, then per test: byte flags (1 = visible, 2 = snippet),
+ *         description, code, int input count, inputs, expected output
+ *   index: per lesson, id, int record offset (within the record area), int record length
+ *   catalog: int epoch count, then per epoch:
+ *     id, title, description, int estimatedHours
+ *     int lesson count, then per lesson: id, title, int estimatedMinutes
+ * </pre>
+ * Test values are a type tag followed by the value. Only the index is read
+ * when the bundle is opened. A lesson record is decoded when the lesson is
+ * loaded, and a section's text is decoded from the mapping each time it is
+ * read, so prose never has to stay on the heap. The catalog is a snapshot of
+ * the epochs and lesson summaries taken at build time.
+ *
+ * A bundle packaged in a jar cannot be mapped in place; it is read into a
+ * direct buffer instead, which keeps it off the heap just the same.
+ */
+public final class ContentBundle {
+
+    public static final int VERSION = 3;
+
+    private static final byte[] MAGIC = {'S', 'J', 'B'};
+    private static final int CATALOG_OFFSET_POSITION = MAGIC.length + 1 + 4 + 4 + 4;
+    private static final int CONTENT_STAMP_POSITION = CATALOG_OFFSET_POSITION + 4;
+    private static final int HEADER_SIZE = CONTENT_STAMP_POSITION + 8;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte CHARACTER = 6;
+
+    /**
+     * An epoch as recorded in the catalog snapshot
+     */
+    public static final class EpochRecord {
+        private final String id;
+        private final String title;
+        private final String description;
+        private final int estimatedHours;
+        private final List<LessonSummary> lessons;
+
+        private EpochRecord(String id, String title, String description, int estimatedHours,
+                            List<LessonSummary> lessons) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.estimatedHours = estimatedHours;
+            this.lessons = lessons;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getEstimatedHours() {
+            return estimatedHours;
+        }
+
+        public List<LessonSummary> getLessons() {
+            return lessons;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final Map<String, int[]> index;
+    private final int catalogOffset;
+    private final long contentStamp;
+
+    private ContentBundle(ByteBuffer buffer, Map<String, int[]> index) {
+        this.buffer = buffer;
+        this.index = index;
+        this.catalogOffset = buffer.getInt(CATALOG_OFFSET_POSITION);
+        this.contentStamp = buffer.getLong(CONTENT_STAMP_POSITION);
+    }
+
+    /**
+     * Maps a bundle file and reads its index
+     */
+    public static ContentBundle open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return load(mapped, file.toString());
+    }
+
+    /**
+     * Reads a bundle's index from a buffer holding the whole bundle
+     */
+    private static ContentBundle load(ByteBuffer buffer, String source) throws IOException {
+        try {
+            return new ContentBundle(buffer, readIndex(buffer));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt content bundle " + source, e);
+        }
+    }
+
+    /**
+     * Opens a bundle from the classpath, or returns null if there is none.
+     * A bundle on a directory classpath is mapped; one inside a jar is read
+     * into a direct buffer.
+     */
+    public static ContentBundle openResource(String name) throws IOException {
+        URL url = ContentBundle.class.getResource(name);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return open(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Bad content bundle location " + url, e);
+            }
+        }
+        byte[] bytes;
+        try (InputStream in = url.openStream()) {
+            bytes = in.readAllBytes();
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        return load(direct, url.toString());
+    }
+
+    /**
+     * The stamp of the compiled content this bundle was exported from
+     */
+    public long getContentStamp() {
+        return contentStamp;
+    }
+
+    public boolean contains(String lessonId) {
+        return index.containsKey(lessonId);
+    }
+
+    public int getLessonCount() {
+        return index.size();
+    }
+
+    /**
+     * Decodes a lesson, or returns null if the bundle does not contain it
+     */
+    public Lesson readLesson(String lessonId) throws IOException {
+        int[] location = index.get(lessonId);
+        if (location == null) {
+            return null;
+        }
+        try {
+            return decodeLesson(slice(location[0], location[1]));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt content bundle record for " + lessonId, e);
+        }
+    }
+
+    /**
+     * Decodes the catalog snapshot: every epoch with its lesson summaries, in order
+     */
+    public List<EpochRecord> readCatalog() throws IOException {
+        try {
+            ByteBuffer in = buffer.duplicate();
+            in.position(catalogOffset);
+            int epochCount = in.getInt();
+            List<EpochRecord> epochs = new ArrayList<>(epochCount);
+            for (int i = 0; i < epochCount; i++) {
+                String id = readString(in);
+                String title = readString(in);
+                String description = readString(in);
+                int estimatedHours = in.getInt();
+                int lessonCount = in.getInt();
+                List<LessonSummary> lessons = new ArrayList<>(lessonCount);
+                for (int j = 0; j < lessonCount; j++) {
+                    lessons.add(new LessonSummary(readString(in), readString(in), in.getInt()));
+                }
+                epochs.add(new EpochRecord(id, title, description, estimatedHours, lessons));
+            }
+            return epochs;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt content bundle catalog", e);
+        }
+    }
+
+    /**
+     * Writes every lesson of the given epochs, and a catalog snapshot, into a bundle
+     * @param contentStamp Identifies the compiled content being exported, see {@link #getContentStamp()}
+     */
+    public static void write(List<Epoch> epochs, Path target, long contentStamp) throws IOException {
+        ByteArrayOutputStream texts = new ByteArrayOutputStream(1 << 20);
+        ByteArrayOutputStream records = new ByteArrayOutputStream(1 << 16);
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(4096);
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        ByteArrayOutputStream catalogBytes = new ByteArrayOutputStream(4096);
+        DataOutputStream catalog = new DataOutputStream(catalogBytes);
+        int lessonCount = 0;
+
+        catalog.writeInt(epochs.size());
+        for (Epoch epoch : epochs) {
+            List<Lesson> lessons = epoch.getLessons();
+            writeString(catalog, epoch.getId());
+            writeString(catalog, epoch.getTitle());
+            writeString(catalog, epoch.getDescription());
+            catalog.writeInt(epoch.getEstimatedHours());
+            catalog.writeInt(lessons.size());
+
+            for (Lesson lesson : lessons) {
+                writeString(catalog, lesson.getId());
+                writeString(catalog, lesson.getTitle());
+                catalog.writeInt(lesson.getEstimatedMinutes());
+
+                ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(1024);
+                DataOutputStream record = new DataOutputStream(recordBytes);
+                writeString(record, lesson.getId());
+                writeString(record, lesson.getTitle());
+                record.writeInt(lesson.getEstimatedMinutes());
+
+                List<Lesson.ContentSection> sections = lesson.getContentSections();
+                record.writeInt(sections.size());
+                for (Lesson.ContentSection section : sections) {
+                    byte[] text = section.getContent().getBytes(StandardCharsets.UTF_8);
+                    writeString(record, section.getHeading());
+                    record.writeByte(section.getType().ordinal());
+                    record.writeInt(HEADER_SIZE + texts.size());
+                    record.writeInt(text.length);
+                    texts.write(text);
+                }
+
+                List<Challenge> challenges = lesson.getChallenges();
+                record.writeInt(challenges.size());
+                for (Challenge challenge : challenges) {
+                    writeChallenge(record, challenge);
+                }
+                record.flush();
+
+                writeString(index, lesson.getId());
+                index.writeInt(records.size());
+                index.writeInt(recordBytes.size());
+                recordBytes.writeTo(records);
+                lessonCount++;
+            }
+        }
+
+        index.flush();
+        catalog.flush();
+        int recordsOffset = HEADER_SIZE + texts.size();
+        int indexOffset = recordsOffset + records.size();
+        int catalogOffset = indexOffset + indexBytes.size();
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(target))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(lessonCount);
+            out.writeInt(recordsOffset);
+            out.writeInt(indexOffset);
+            out.writeInt(catalogOffset);
+            out.writeLong(contentStamp);
+            texts.writeTo(out);
+            records.writeTo(out);
+            indexBytes.writeTo(out);
+            catalogBytes.writeTo(out);
+        }
+    }
+
+    private static Map<String, int[]> readIndex(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate();
+        for (byte b : MAGIC) {
+            if (in.get() != b) {
+                throw new IOException("Not a content bundle");
+            }
+        }
+        int version = in.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported content bundle version " + version);
+        }
+        int lessonCount = in.getInt();
+        int recordsOffset = in.getInt();
+        in.position(in.getInt());
+
+        Map<String, int[]> index = new HashMap<>(lessonCount * 2);
+        for (int i = 0; i < lessonCount; i++) {
+            String id = readString(in);
+            int offset = recordsOffset + in.getInt();
+            int length = in.getInt();
+            index.put(id, new int[]{offset, length});
+        }
+        return index;
+    }
+
+    private Lesson decodeLesson(ByteBuffer in) {
+        Lesson.Builder builder = new Lesson.Builder(readString(in), readString(in))
+            .estimatedMinutes(in.getInt());
+
+        Lesson.ContentType[] types = Lesson.ContentType.values();
+        int sectionCount = in.getInt();
+        for (int i = 0; i < sectionCount; i++) {
+            String heading = readString(in);
+            Lesson.ContentType type = types[in.get()];
+            int offset = in.getInt();
+            int length = in.getInt();
+            builder.addSection(new Lesson.ContentSection(heading, () -> text(offset, length), type));
+        }
+
+        int challengeCount = in.getInt();
+        for (int i = 0; i < challengeCount; i++) {
+            builder.addChallenge(readChallenge(in));
+        }
+        return builder.build();
+    }
+
+    private String text(int offset, int length) {
+        byte[] bytes = new byte[length];
+        slice(offset, length).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A private view of a region, so concurrent readers never share a position
+     */
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view;
+    }
+
+    private static void writeChallenge(DataOutputStream out, Challenge challenge) throws IOException {
+        writeString(out, challenge.getId());
+        writeString(out, challenge.getTitle());
+        writeString(out, challenge.getDescription());
+        out.writeByte(challenge.getType().ordinal());
+        writeString(out, challenge.getStarterCode());
+        writeString(out, challenge.getMethodSignature());
+        writeString(out, challenge.getCorrectAnswer());
+
+        List<String> options = challenge.getMultipleChoiceOptions();
+        out.writeInt(options.size());
+        for (String option : options) {
+            writeString(out, option);
+        }
+
+        List<TestCase> tests = challenge.getTestCases();
+        out.writeInt(tests.size());
+        for (TestCase test : tests) {
+            out.writeByte((test.isVisible() ? 1 : 0) | (test.isSnippet() ? 2 : 0));
+            writeString(out, test.getDescription());
+            writeString(out, test.getCode());
+            Object[] inputs = test.getInputs();
+            out.writeInt(inputs.length);
+            for (Object input : inputs) {
+                writeValue(out, input);
+            }
+            writeValue(out, test.getExpectedOutput());
+        }
+    }
+
+    private static Challenge readChallenge(ByteBuffer in) {
+        String id = readString(in);
+        String title = readString(in);
+        String description = readString(in);
+        ChallengeType type = ChallengeType.values()[in.get()];
+        Challenge.Builder builder = new Challenge.Builder(id, title, type)
+            .description(description)
+            .starterCode(readString(in))
+            .methodSignature(readString(in))
+            .correctAnswer(readString(in));
+
+        int optionCount = in.getInt();
+        for (int i = 0; i < optionCount; i++) {
+            builder.addMultipleChoiceOption(readString(in));
+        }
+
+        int testCount = in.getInt();
+        for (int i = 0; i < testCount; i++) {
+            int flags = in.get();
+            String testDescription = readString(in);
+            String code = readString(in);
+            Object[] inputs = new Object[in.getInt()];
+            for (int j = 0; j < inputs.length; j++) {
+                inputs[j] = readValue(in);
+            }
+            Object expected = readValue(in);
+            boolean visible = (flags & 1) != 0;
+            if ((flags & 2) != 0) {
+                builder.addTestCase(new TestCase(code, (String) expected, visible, testDescription));
+            } else {
+                builder.addTestCase(new TestCase(testDescription, inputs, expected, visible));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else {
+            throw new IOException("Unsupported test value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case BOOLEAN:
+                return in.get() != 0;
+            case CHARACTER:
+                return in.getChar();
+            default:
+                throw new IllegalArgumentException("Unknown test value tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
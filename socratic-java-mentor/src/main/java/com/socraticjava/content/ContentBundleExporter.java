@@ -0,0 +1,74 @@
+package com.socraticjava.content;
+
+import com.socraticjava.model.Epoch;
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Build-time tool that exports all compiled lesson content into a
+ * {@link ContentBundle}
+ *
+ * Usage: ContentBundleExporter &lt;output file&gt;
+ */
+public class ContentBundleExporter {
+
+    public static void main(String[] args) throws IOException {
+        // Runs inside Maven's JVM under exec:java, so fail by throwing rather than exiting
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ContentBundleExporter <output file>");
+        }
+        Path target = Path.of(args[0]);
+
+        // Always export from the content classes, never from a previous bundle
+        EpochRegistry.disableBundle();
+        List<Epoch> epochs = EpochRegistry.getAllEpochs();
+        checkSummaries(epochs);
+        ContentBundle.write(epochs, target, EpochRegistry.compiledContentStamp());
+        System.out.println("Exported " + EpochRegistry.getCatalog().getTotalLessonCount()
+            + " lessons to " + target);
+    }
+
+    /**
+     * Fails if any lesson summary declared in the registry disagrees with the
+     * lesson its content class builds. The catalog maps summaries to lessons by
+     * position, so a drifted id, title or duration would otherwise only show up
+     * when running without a bundle.
+     */
+    static void checkSummaries(List<Epoch> epochs) {
+        List<String> mismatches = new ArrayList<>();
+        for (Epoch epoch : epochs) {
+            List<LessonSummary> summaries = epoch.getLessonSummaries();
+            List<Lesson> lessons = epoch.getLessons();
+            if (summaries.size() != lessons.size()) {
+                mismatches.add(epoch.getId() + ": " + summaries.size() + " summaries but "
+                    + lessons.size() + " lessons");
+            }
+            for (int i = 0; i < Math.min(summaries.size(), lessons.size()); i++) {
+                LessonSummary summary = summaries.get(i);
+                Lesson lesson = lessons.get(i);
+                if (!Objects.equals(summary.getId(), lesson.getId())) {
+                    mismatches.add(epoch.getId() + " lesson " + i + ": id '" + summary.getId()
+                        + "' but the content builds '" + lesson.getId() + "'");
+                }
+                if (!Objects.equals(summary.getTitle(), lesson.getTitle())) {
+                    mismatches.add(lesson.getId() + ": title '" + summary.getTitle()
+                        + "' but the content says '" + lesson.getTitle() + "'");
+                }
+                if (summary.getEstimatedMinutes() != lesson.getEstimatedMinutes()) {
+                    mismatches.add(lesson.getId() + ": " + summary.getEstimatedMinutes()
+                        + " minutes but the content says " + lesson.getEstimatedMinutes());
+                }
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("Lesson summaries in EpochRegistry do not match the content:\n  "
+                + String.join("\n  ", mismatches));
+        }
+    }
+}
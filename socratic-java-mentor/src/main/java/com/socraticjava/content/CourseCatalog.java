@@ -0,0 +1,251 @@
+package com.socraticjava.content;
+
+import com.socraticjava.model.Challenge;
+import com.socraticjava.model.Epoch;
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, indexed view of the course
+ *
+ * Built once from the epochs' lesson summaries, with hash indexes by epoch and
+ * lesson ID and each lesson's previous/next lesson precomputed, so lookups and
+ * navigation are constant-time and never copy lists. Building it loads no
+ * lesson content: an epoch's lessons are materialized, and its challenges
+ * indexed, the first time one of them is asked for.
+ */
+public final class CourseCatalog {
+
+    /**
+     * A lesson with its position in the course
+     */
+    public static final class LessonEntry {
+        private final CourseCatalog catalog;
+        private final LessonSummary summary;
+        private final Epoch epoch;
+        private final int index;
+        private LessonEntry previous;
+        private LessonEntry next;
+
+        private LessonEntry(CourseCatalog catalog, LessonSummary summary, Epoch epoch, int index) {
+            this.catalog = catalog;
+            this.summary = summary;
+            this.epoch = epoch;
+            this.index = index;
+        }
+
+        public LessonSummary getSummary() {
+            return summary;
+        }
+
+        /**
+         * The full lesson, loading its epoch's content if needed
+         */
+        public Lesson getLesson() {
+            List<Lesson> lessons = catalog.getLessons(epoch.getId());
+            return index < lessons.size() ? lessons.get(index) : null;
+        }
+
+        public Epoch getEpoch() {
+            return epoch;
+        }
+
+        /**
+         * Position of the lesson within its epoch, from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Previous lesson in the same epoch, or null for the first lesson
+         */
+        public Lesson getPrevious() {
+            return previous == null ? null : previous.getLesson();
+        }
+
+        /**
+         * Next lesson in the same epoch, or null for the last lesson
+         */
+        public Lesson getNext() {
+            return next == null ? null : next.getLesson();
+        }
+    }
+
+    private final List<Epoch> epochs;
+    private final Map<String, Epoch> epochsById;
+    private final Map<String, Integer> epochPositions;
+    private final Map<String, LessonEntry> lessonsById;
+    private final int totalLessonCount;
+
+    // Filled in per epoch as content is loaded
+    private final Map<String, List<Lesson>> lessonsByEpochId = new ConcurrentHashMap<>();
+    private final Map<String, Challenge> challengesById = new ConcurrentHashMap<>();
+    private final Map<String, Lesson> lessonsByChallengeId = new ConcurrentHashMap<>();
+
+    public CourseCatalog(List<Epoch> epochs) {
+        List<Epoch> ordered = new ArrayList<>(epochs.size());
+        Map<String, Epoch> epochIndex = new HashMap<>();
+        Map<String, Integer> positions = new HashMap<>();
+        Map<String, LessonEntry> lessonIndex = new HashMap<>();
+        int lessonCount = 0;
+
+        for (Epoch epoch : epochs) {
+            if (epochIndex.putIfAbsent(epoch.getId(), epoch) != null) {
+                System.err.println("Duplicate epoch ID ignored: " + epoch.getId());
+                continue;
+            }
+            positions.put(epoch.getId(), ordered.size());
+            ordered.add(epoch);
+            List<LessonSummary> summaries = epoch.getLessonSummaries();
+            lessonCount += summaries.size();
+
+            LessonEntry previous = null;
+            for (int i = 0; i < summaries.size(); i++) {
+                LessonSummary summary = summaries.get(i);
+                LessonEntry entry = new LessonEntry(this, summary, epoch, i);
+                if (lessonIndex.putIfAbsent(summary.getId(), entry) != null) {
+                    System.err.println("Duplicate lesson ID ignored: " + summary.getId());
+                }
+                if (previous != null) {
+                    entry.previous = previous;
+                    previous.next = entry;
+                }
+                previous = entry;
+            }
+        }
+
+        this.epochs = Collections.unmodifiableList(ordered);
+        this.epochsById = epochIndex;
+        this.epochPositions = positions;
+        this.lessonsById = lessonIndex;
+        this.totalLessonCount = lessonCount;
+    }
+
+    /**
+     * All epochs in course order; the list is unmodifiable
+     */
+    public List<Epoch> getEpochs() {
+        return epochs;
+    }
+
+    public Epoch getEpoch(String epochId) {
+        return epochsById.get(epochId);
+    }
+
+    /**
+     * The epoch after the given one, or null for the last or an unknown epoch
+     */
+    public Epoch getNextEpoch(String epochId) {
+        Integer position = epochPositions.get(epochId);
+        if (position == null || position + 1 >= epochs.size()) {
+            return null;
+        }
+        return epochs.get(position + 1);
+    }
+
+    /**
+     * Lesson summaries of an epoch in order, without loading any content
+     */
+    public List<LessonSummary> getLessonSummaries(String epochId) {
+        Epoch epoch = epochsById.get(epochId);
+        return epoch == null ? Collections.emptyList() : epoch.getLessonSummaries();
+    }
+
+    /**
+     * Lessons of an epoch in order (unmodifiable), or an empty list for an unknown epoch.
+     * Loads the epoch's content on first call.
+     */
+    public List<Lesson> getLessons(String epochId) {
+        List<Lesson> lessons = lessonsByEpochId.get(epochId);
+        if (lessons != null) {
+            return lessons;
+        }
+        Epoch epoch = epochsById.get(epochId);
+        if (epoch == null) {
+            return Collections.emptyList();
+        }
+        return lessonsByEpochId.computeIfAbsent(epochId, id -> index(epoch));
+    }
+
+    public Lesson getLesson(String lessonId) {
+        LessonEntry entry = lessonsById.get(lessonId);
+        return entry == null ? null : entry.getLesson();
+    }
+
+    /**
+     * The lesson with its epoch and neighbours, or null for an unknown lesson
+     */
+    public LessonEntry getLessonEntry(String lessonId) {
+        return lessonsById.get(lessonId);
+    }
+
+    /**
+     * Finds a challenge by ID. Challenges are indexed as their epoch loads, so
+     * an ID not seen yet loads the remaining epochs until it is found.
+     */
+    public Challenge getChallenge(String challengeId) {
+        Challenge challenge = challengesById.get(challengeId);
+        if (challenge == null && loadUntilIndexed(challengeId)) {
+            challenge = challengesById.get(challengeId);
+        }
+        return challenge;
+    }
+
+    /**
+     * The lesson a challenge belongs to, or null for an unknown challenge
+     */
+    public Lesson getLessonForChallenge(String challengeId) {
+        Lesson lesson = lessonsByChallengeId.get(challengeId);
+        if (lesson == null && loadUntilIndexed(challengeId)) {
+            lesson = lessonsByChallengeId.get(challengeId);
+        }
+        return lesson;
+    }
+
+    public int getTotalLessonCount() {
+        return totalLessonCount;
+    }
+
+    private boolean loadUntilIndexed(String challengeId) {
+        for (Epoch epoch : epochs) {
+            if (!lessonsByEpochId.containsKey(epoch.getId())) {
+                getLessons(epoch.getId());
+                if (challengesById.containsKey(challengeId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads an epoch's lessons, checks them against its summaries and indexes their challenges
+     */
+    private List<Lesson> index(Epoch epoch) {
+        List<Lesson> lessons = Collections.unmodifiableList(epoch.getLessons());
+        List<LessonSummary> summaries = epoch.getLessonSummaries();
+        for (int i = 0; i < lessons.size(); i++) {
+            Lesson lesson = lessons.get(i);
+            if (i >= summaries.size() || !summaries.get(i).getId().equals(lesson.getId())) {
+                System.err.println("Lesson " + lesson.getId() + " does not match the registered lessons of "
+                    + epoch.getId());
+            }
+            for (Challenge challenge : lesson.getChallenges()) {
+                if (challengesById.putIfAbsent(challenge.getId(), challenge) != null) {
+                    System.err.println("Duplicate challenge ID ignored: " + challenge.getId());
+                } else {
+                    lessonsByChallengeId.put(challenge.getId(), lesson);
+                }
+            }
+        }
+        return lessons;
+    }
+}
@@ -5,43 +5,264 @@ import com.socraticjava.content.epoch0.Lesson02Content;
 import com.socraticjava.content.epoch0.Lesson03Content;
 import com.socraticjava.content.epoch0.Lesson04Content;
 import com.socraticjava.model.Epoch;
-
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Central registry of all epochs and lessons
  * This is where all course content is loaded
+ *
+ * Epoch and lesson metadata is available immediately; each epoch's lesson
+ * content is only built the first time it is needed. When the build has
+ * produced a content bundle, both come from it: the catalog snapshot replaces
+ * the declarations below and lessons are decoded instead of built.
  */
 public class EpochRegistry {
 
-    private static List<Epoch> epochs;
+    /**
+     * Builds the catalog on first use. The JVM runs a class initializer exactly
+     * once and publishes its result to every thread, so concurrent first calls
+     * wait for one construction instead of racing to build the content twice.
+     */
+    private static final class CatalogHolder {
+        static final CourseCatalog CATALOG = new CourseCatalog(initializeEpochs());
+    }
 
     /**
-     * Returns all available epochs in order
+     * Returns the indexed catalog of all epochs, lessons and challenges
      */
-    public static List<Epoch> getAllEpochs() {
-        if (epochs == null) {
-            initializeEpochs();
+    public static CourseCatalog getCatalog() {
+        return CatalogHolder.CATALOG;
+    }
+
+    /**
+     * Builds the catalog now if it is not built yet. Only metadata is built;
+     * use {@link #prefetch(String)} to load lesson content ahead of time.
+     */
+    public static void preload() {
+        getCatalog();
+    }
+
+    /**
+     * Starts building the catalog on a daemon thread and returns immediately.
+     * Callers that need the catalog before it is done simply wait for it.
+     */
+    public static void preloadInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                preload();
+            } catch (RuntimeException | LinkageError e) {
+                // The first real lookup will rethrow; nothing more to do here
+                System.err.println("Failed to preload course content: " + e.getMessage());
+            }
+        }, "catalog-preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final String BUNDLE_RESOURCE = "/content/lessons.bundle";
+
+    private static volatile boolean bundleEnabled = true;
+
+    /**
+     * The exported content bundle, opened on first use, or null if the build
+     * did not produce one or it is older than the compiled content
+     */
+    private static final class BundleHolder {
+        static final ContentBundle BUNDLE = openBundle();
+
+        private static ContentBundle openBundle() {
+            try {
+                ContentBundle bundle = ContentBundle.openResource(BUNDLE_RESOURCE);
+                if (bundle == null) {
+                    return null;
+                }
+                long stamp = compiledContentStamp();
+                if (stamp >= 0 && stamp != bundle.getContentStamp()) {
+                    // e.g. an IDE recompiled lessons without running the export step
+                    System.err.println("Content bundle does not match the compiled content, using compiled content");
+                    return null;
+                }
+                return bundle;
+            } catch (IOException e) {
+                System.err.println("Failed to open content bundle, using compiled content: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Newest modification time of the compiled content classes, or -1 when they
+     * are packaged in a jar. A jar is built from a single Maven run, which always
+     * exports the bundle after compiling, so only a directory of classes can be
+     * out of step with its bundle.
+     */
+    static long compiledContentStamp() throws IOException {
+        CodeSource codeSource = EpochRegistry.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return -1;
         }
-        return new ArrayList<>(epochs);
+        Path contentClasses;
+        try {
+            Path root = Path.of(codeSource.getLocation().toURI());
+            contentClasses = root.resolve(EpochRegistry.class.getPackageName().replace('.', '/'));
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            return -1;
+        }
+        if (!Files.isDirectory(contentClasses)) {
+            return -1;
+        }
+        try (Stream<Path> files = Files.walk(contentClasses)) {
+            long newest = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.toString().endsWith(".class")) {
+                    newest = Math.max(newest, Files.getLastModifiedTime(file).toMillis());
+                }
+            }
+            return newest;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Makes the catalog and lessons always come from the compiled content
+     * classes. Must be called before the catalog is first used.
+     */
+    static void disableBundle() {
+        bundleEnabled = false;
+    }
+
+    /**
+     * Single daemon thread for loading epoch content ahead of time
+     */
+    private static final class PrefetchHolder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "content-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the content of an epoch and the one after it on a background thread,
+     * so moving into them does not wait for content construction. Epochs that
+     * are already loaded are skipped.
+     */
+    public static void prefetch(String epochId) {
+        CourseCatalog catalog = getCatalog();
+        List<Epoch> toLoad = new ArrayList<>(2);
+        Epoch current = catalog.getEpoch(epochId);
+        Epoch next = catalog.getNextEpoch(epochId);
+        if (current != null && !current.isLoaded()) {
+            toLoad.add(current);
+        }
+        if (next != null && !next.isLoaded()) {
+            toLoad.add(next);
+        }
+        if (toLoad.isEmpty()) {
+            return;
+        }
+        PrefetchHolder.EXECUTOR.execute(() -> {
+            for (Epoch epoch : toLoad) {
+                try {
+                    catalog.getLessons(epoch.getId());
+                } catch (RuntimeException | LinkageError e) {
+                    // A real lookup will hit the same error and report it
+                    System.err.println("Failed to prefetch " + epoch.getId() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns all available epochs in order; the list is unmodifiable
+     */
+    public static List<Epoch> getAllEpochs() {
+        return getCatalog().getEpochs();
     }
 
     /**
      * Gets a specific epoch by ID
      */
     public static Epoch getEpochById(String epochId) {
-        return getAllEpochs().stream()
-            .filter(e -> e.getId().equals(epochId))
-            .findFirst()
-            .orElse(null);
+        return getCatalog().getEpoch(epochId);
+    }
+
+    /**
+     * Initialize all epochs (metadata only; lessons load lazily)
+     */
+    private static List<Epoch> initializeEpochs() {
+        ContentBundle bundle = bundleEnabled ? BundleHolder.BUNDLE : null;
+        if (bundle != null) {
+            try {
+                return snapshotEpochs(bundle);
+            } catch (IOException e) {
+                System.err.println("Failed to read the catalog snapshot, using compiled content: "
+                    + e.getMessage());
+            }
+        }
+        return declaredEpochs();
+    }
+
+    /**
+     * Epochs from the build-time catalog snapshot, with lessons decoded from the bundle
+     */
+    private static List<Epoch> snapshotEpochs(ContentBundle bundle) throws IOException {
+        List<Epoch> epochs = new ArrayList<>();
+        for (ContentBundle.EpochRecord record : bundle.readCatalog()) {
+            epochs.add(new Epoch(record.getId(), record.getTitle(), record.getDescription(),
+                record.getEstimatedHours(), record.getLessons(), () -> snapshotLessons(bundle, record)));
+        }
+        return epochs;
+    }
+
+    /**
+     * Decodes an epoch's lessons, falling back to the compiled content for the
+     * whole epoch if any of them cannot be read
+     */
+    private static List<Lesson> snapshotLessons(ContentBundle bundle, ContentBundle.EpochRecord record) {
+        List<Lesson> lessons = new ArrayList<>(record.getLessons().size());
+        try {
+            for (LessonSummary summary : record.getLessons()) {
+                Lesson lesson = bundle.readLesson(summary.getId());
+                if (lesson == null) {
+                    throw new IOException("Lesson " + summary.getId() + " is missing");
+                }
+                lessons.add(lesson);
+            }
+            return lessons;
+        } catch (IOException e) {
+            System.err.println("Failed to read " + record.getId() + " from the content bundle, "
+                + "using compiled content: " + e.getMessage());
+        }
+        for (Epoch epoch : declaredEpochs()) {
+            if (epoch.getId().equals(record.getId())) {
+                return epoch.getLessons();
+            }
+        }
+        return new ArrayList<>();
     }
 
     /**
-     * Initialize all epochs (lazy loading)
+     * Epochs as declared in this class, built from the compiled content classes
      */
-    private static void initializeEpochs() {
-        epochs = new ArrayList<>();
+    private static List<Epoch> declaredEpochs() {
+        List<Epoch> epochs = new ArrayList<>();
         epochs.add(createEpoch0());
         epochs.add(createEpoch1());
         epochs.add(createEpoch2());
@@ -53,239 +274,308 @@ public class EpochRegistry {
         epochs.add(createEpoch8());
         epochs.add(createEpoch9());
         epochs.add(createEpoch10());
+        return epochs;
+    }
+
+    /**
+     * Creates an epoch from its metadata; lesson content is built on first access
+     */
+    private static Epoch lazyEpoch(String id, String title, String description, int estimatedHours,
+                                   LessonSource... sources) {
+        List<LessonSummary> summaries = new ArrayList<>(sources.length);
+        for (LessonSource source : sources) {
+            summaries.add(source.summary);
+        }
+        return new Epoch(id, title, description, estimatedHours, summaries, () -> {
+            List<Lesson> lessons = new ArrayList<>(sources.length);
+            for (LessonSource source : sources) {
+                lessons.add(source.factory.get());
+            }
+            return lessons;
+        });
+    }
+
+    /**
+     * The factory is a lambda rather than a method reference so the content
+     * class is not even resolved until the lesson is built
+     */
+    private static LessonSource lesson(String id, String title, int estimatedMinutes, Supplier<Lesson> factory) {
+        return new LessonSource(new LessonSummary(id, title, estimatedMinutes), factory);
+    }
+
+    private static final class LessonSource {
+        final LessonSummary summary;
+        final Supplier<Lesson> factory;
+
+        LessonSource(LessonSummary summary, Supplier<Lesson> factory) {
+            this.summary = summary;
+            this.factory = factory;
+        }
     }
 
     /**
      * Creates Epoch 0: The Foundation
      */
     private static Epoch createEpoch0() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-0",
             "Epoch 0: The Foundation",
             "What is a program? What is Java? Why does any of this matter?",
-            5
+            5,
+            lesson("epoch-0-lesson-1", "Lesson 0.1: What is a Computer Program?", 15,
+                () -> Lesson01Content.create()),
+            lesson("epoch-0-lesson-2", "Lesson 0.2: Your First Java Program", 20,
+                () -> Lesson02Content.create()),
+            lesson("epoch-0-lesson-3", "Lesson 0.3: Understanding Variables", 25,
+                () -> Lesson03Content.create()),
+            lesson("epoch-0-lesson-4", "Lesson 0.4: Making Decisions with If/Else", 30,
+                () -> Lesson04Content.create())
         );
-
-        // Add lessons
-        epoch.addLesson(Lesson01Content.create());
-        epoch.addLesson(Lesson02Content.create());
-        epoch.addLesson(Lesson03Content.create());
-        epoch.addLesson(Lesson04Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 1: The Bare Essentials
      */
     private static Epoch createEpoch1() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-1",
             "Epoch 1: The Bare Essentials",
             "Data types, operators, loops, and methods",
-            8
+            8,
+            lesson("epoch-1-lesson-1", "Lesson 1.1: Data Types in Depth", 30,
+                () -> com.socraticjava.content.epoch1.Lesson01Content.create()),
+            lesson("epoch-1-lesson-2", "Lesson 1.2: Operators and Expressions", 30,
+                () -> com.socraticjava.content.epoch1.Lesson02Content.create()),
+            lesson("epoch-1-lesson-3", "Lesson 1.3: While Loops - Mastering Repetition", 35,
+                () -> com.socraticjava.content.epoch1.Lesson03Content.create()),
+            lesson("epoch-1-lesson-4", "Lesson 1.4: For Loops - Counting Made Easy", 30,
+                () -> com.socraticjava.content.epoch1.Lesson04Content.create()),
+            lesson("epoch-1-lesson-5", "Lesson 1.5: Introduction to Methods", 35,
+                () -> com.socraticjava.content.epoch1.Lesson05Content.create()),
+            lesson("epoch-1-lesson-6", "Lesson 1.6: What Do 'public', 'static', and 'void' Mean?", 40,
+                () -> com.socraticjava.content.epoch1.Lesson06Content.create())
         );
-
-        // Add lessons using fully qualified class names
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch1.Lesson06Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 2: Thinking in Objects
      */
     private static Epoch createEpoch2() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-2",
             "Epoch 2: Thinking in Objects",
             "Classes, objects, and object-oriented programming",
-            10
+            10,
+            lesson("epoch-2-lesson-1", "Lesson 2.1: Classes and Objects - The Blueprint", 40,
+                () -> com.socraticjava.content.epoch2.Lesson01Content.create()),
+            lesson("epoch-2-lesson-2", "Lesson 2.2: Constructors - Better Object Creation", 30,
+                () -> com.socraticjava.content.epoch2.Lesson02Content.create()),
+            lesson("epoch-2-lesson-3", "Lesson 2.3: Encapsulation - Protecting Your Data", 35,
+                () -> com.socraticjava.content.epoch2.Lesson03Content.create()),
+            lesson("epoch-2-lesson-4", "Lesson 2.4: Inheritance - Building on Existing Classes", 40,
+                () -> com.socraticjava.content.epoch2.Lesson04Content.create()),
+            lesson("epoch-2-lesson-5", "Lesson 2.5: Polymorphism - One Interface, Many Forms", 40,
+                () -> com.socraticjava.content.epoch2.Lesson05Content.create()),
+            lesson("epoch-2-lesson-6", "Lesson 2.6: Abstract Classes & Interfaces - Enforcing Contracts", 45,
+                () -> com.socraticjava.content.epoch2.Lesson06Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch2.Lesson06Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 3: Building Your Toolkit
      */
     private static Epoch createEpoch3() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-3",
             "Epoch 3: Building Your Toolkit",
             "Arrays, collections, and data structures",
-            8
+            8,
+            lesson("epoch-3-lesson-1", "Lesson 3.1: Arrays - Storing Multiple Values", 35,
+                () -> com.socraticjava.content.epoch3.Lesson01Content.create()),
+            lesson("epoch-3-lesson-2", "Lesson 3.2: ArrayList - Arrays That Grow", 40,
+                () -> com.socraticjava.content.epoch3.Lesson02Content.create()),
+            lesson("epoch-3-lesson-3", "Lesson 3.3: HashMap - Looking Up by Name", 40,
+                () -> com.socraticjava.content.epoch3.Lesson03Content.create()),
+            lesson("epoch-3-lesson-4", "Lesson 3.4: LinkedList - A Different Kind of List", 35,
+                () -> com.socraticjava.content.epoch3.Lesson04Content.create()),
+            lesson("epoch-3-lesson-5", "Lesson 3.5: Sorting, Searching, and Collection Utilities", 40,
+                () -> com.socraticjava.content.epoch3.Lesson05Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch3.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch3.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch3.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch3.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch3.Lesson05Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 4: The Professional's Toolbox
      */
     private static Epoch createEpoch4() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-4",
             "Epoch 4: The Professional's Toolbox",
             "Testing, build tools, and professional practices",
-            6
+            6,
+            lesson("epoch-4-lesson-1", "Lesson 4.1: Why Test Your Code?", 25,
+                () -> com.socraticjava.content.epoch4.Lesson01Content.create()),
+            lesson("epoch-4-lesson-2", "Lesson 4.2: Writing Your First JUnit Tests", 40,
+                () -> com.socraticjava.content.epoch4.Lesson02Content.create()),
+            lesson("epoch-4-lesson-3", "Lesson 4.3: Test-Driven Development - Write Tests First!", 35,
+                () -> com.socraticjava.content.epoch4.Lesson03Content.create()),
+            lesson("epoch-4-lesson-4", "Lesson 4.4: Maven - Managing Projects Like a Pro", 35,
+                () -> com.socraticjava.content.epoch4.Lesson04Content.create()),
+            lesson("epoch-4-lesson-5", "Lesson 4.5: Debugging, Logging, and Professional Habits", 40,
+                () -> com.socraticjava.content.epoch4.Lesson05Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch4.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch4.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch4.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch4.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch4.Lesson05Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 5: The Database
      */
     private static Epoch createEpoch5() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-5",
             "Epoch 5: The Database",
             "SQL, databases, and persistence",
-            10
+            10,
+            lesson("epoch-5-lesson-1", "Lesson 5.1: Why Do We Need Databases?", 30,
+                () -> com.socraticjava.content.epoch5.Lesson01Content.create()),
+            lesson("epoch-5-lesson-2", "Lesson 5.2: SQL Basics - Your First Database", 40,
+                () -> com.socraticjava.content.epoch5.Lesson02Content.create()),
+            lesson("epoch-5-lesson-3", "Lesson 5.3: SQL Queries - Filtering, Sorting, and Aggregating", 40,
+                () -> com.socraticjava.content.epoch5.Lesson03Content.create()),
+            lesson("epoch-5-lesson-4", "Lesson 5.4: JOINs - Connecting Tables", 45,
+                () -> com.socraticjava.content.epoch5.Lesson04Content.create()),
+            lesson("epoch-5-lesson-5", "Lesson 5.5: JDBC - Databases + Java", 45,
+                () -> com.socraticjava.content.epoch5.Lesson05Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch5.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch5.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch5.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch5.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch5.Lesson05Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 6: The Connected Web
      */
     private static Epoch createEpoch6() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-6",
             "Epoch 6: The Connected Web",
             "HTTP, REST APIs, and web services",
-            8
+            8,
+            lesson("epoch-6-lesson-1", "Lesson 6.1: How Does the Web Actually Work?", 30,
+                () -> com.socraticjava.content.epoch6.Lesson01Content.create()),
+            lesson("epoch-6-lesson-2", "Lesson 6.2: REST APIs - The Standard for Web Services", 40,
+                () -> com.socraticjava.content.epoch6.Lesson02Content.create()),
+            lesson("epoch-6-lesson-3", "Lesson 6.3: HttpClient - Calling APIs from Java", 40,
+                () -> com.socraticjava.content.epoch6.Lesson03Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch6.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch6.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch6.Lesson03Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 7: The Modern Framework
      */
     private static Epoch createEpoch7() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-7",
             "Epoch 7: The Modern Framework",
             "Spring Boot and enterprise Java",
-            15
+            15,
+            lesson("epoch-7-lesson-1", "Lesson 7.1: Why Spring Boot?", 35,
+                () -> com.socraticjava.content.epoch7.Lesson01Content.create()),
+            lesson("epoch-7-lesson-2", "Lesson 7.2: REST Controllers - Building Your API", 45,
+                () -> com.socraticjava.content.epoch7.Lesson02Content.create()),
+            lesson("epoch-7-lesson-3", "Lesson 7.3: Spring Data JPA - No More SQL!", 45,
+                () -> com.socraticjava.content.epoch7.Lesson03Content.create()),
+            lesson("epoch-7-lesson-4", "Lesson 7.4: Dependency Injection - The Heart of Spring", 40,
+                () -> com.socraticjava.content.epoch7.Lesson04Content.create()),
+            lesson("epoch-7-lesson-5", "Lesson 7.5: Configuration - Making Your App Flexible", 45,
+                () -> com.socraticjava.content.epoch7.Lesson05Content.create()),
+            lesson("epoch-7-lesson-6", "Lesson 7.6: Exception Handling - Failing Gracefully", 45,
+                () -> com.socraticjava.content.epoch7.Lesson06Content.create()),
+            lesson("epoch-7-lesson-7", "Lesson 7.7: Spring Security - Protecting Your API", 50,
+                () -> com.socraticjava.content.epoch7.Lesson07Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson06Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch7.Lesson07Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 8: The Frontend Connection
      */
     private static Epoch createEpoch8() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-8",
             "Epoch 8: The Frontend Connection",
             "Full-stack integration and deployment",
-            6
+            6,
+            lesson("epoch-8-lesson-1", "Lesson 8.1: Connecting Frontend to Your API", 30,
+                () -> com.socraticjava.content.epoch8.Lesson01Content.create()),
+            lesson("epoch-8-lesson-2", "Lesson 8.2: Full-Stack Feature - End to End", 50,
+                () -> com.socraticjava.content.epoch8.Lesson02Content.create()),
+            lesson("epoch-8-lesson-3", "Lesson 8.3: REST API Design - Professional Standards", 45,
+                () -> com.socraticjava.content.epoch8.Lesson03Content.create()),
+            lesson("epoch-8-lesson-4", "Lesson 8.4: Error Handling - From Database to UI", 50,
+                () -> com.socraticjava.content.epoch8.Lesson04Content.create()),
+            lesson("epoch-8-lesson-5", "Lesson 8.5: Deployment - From Laptop to Production", 55,
+                () -> com.socraticjava.content.epoch8.Lesson05Content.create()),
+            lesson("epoch-8-lesson-6", "Lesson 8.6: Complete Feature - Database to UI", 60,
+                () -> com.socraticjava.content.epoch8.Lesson06Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch8.Lesson06Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 9: The Capstone Project
      */
     private static Epoch createEpoch9() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-9",
             "Epoch 9: The Capstone Project",
             "Build your full-stack task management application",
-            11
+            11,
+            lesson("epoch-9-lesson-1", "Lesson 9.1: Your Capstone Project", 60,
+                () -> com.socraticjava.content.epoch9.Lesson01Content.create()),
+            lesson("epoch-9-lesson-2", "Lesson 9.2: Planning Your Capstone - From Idea to Action Plan", 45,
+                () -> com.socraticjava.content.epoch9.Lesson02Content.create()),
+            lesson("epoch-9-lesson-3", "Lesson 9.3: Setting Up Your Dev Environment", 60,
+                () -> com.socraticjava.content.epoch9.Lesson03Content.create()),
+            lesson("epoch-9-lesson-4", "Lesson 9.4: Building Your Backend - Entities and Repositories", 50,
+                () -> com.socraticjava.content.epoch9.Lesson04Content.create()),
+            lesson("epoch-9-lesson-5", "Lesson 9.5: Services and Controllers - The Business Logic", 55,
+                () -> com.socraticjava.content.epoch9.Lesson05Content.create()),
+            lesson("epoch-9-lesson-6", "Lesson 9.6: Authentication - Securing Your API", 60,
+                () -> com.socraticjava.content.epoch9.Lesson06Content.create()),
+            lesson("epoch-9-lesson-7", "Lesson 9.7: Frontend - Connecting to Your API", 65,
+                () -> com.socraticjava.content.epoch9.Lesson07Content.create()),
+            lesson("epoch-9-lesson-8", "Lesson 9.8: Testing - Making Sure Everything Works", 55,
+                () -> com.socraticjava.content.epoch9.Lesson08Content.create()),
+            lesson("epoch-9-lesson-9", "Lesson 9.9: Deployment - From Local to Production", 60,
+                () -> com.socraticjava.content.epoch9.Lesson09Content.create()),
+            lesson("epoch-9-lesson-10", "Implementing JWT Authentication and Authorization", 60,
+                () -> com.socraticjava.content.epoch9.Lesson10Content.create()),
+            lesson("epoch-9-lesson-11", "Error Handling and Logging Best Practices", 50,
+                () -> com.socraticjava.content.epoch9.Lesson11Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson06Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson07Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson08Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson09Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson10Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch9.Lesson11Content.create());
-
-        return epoch;
     }
 
     /**
      * Creates Epoch 10: Production-Ready Engineering
      */
     private static Epoch createEpoch10() {
-        Epoch epoch = new Epoch(
+        return lazyEpoch(
             "epoch-10",
             "Epoch 10: Production-Ready Engineering",
             "Master professional practices for production applications",
-            9
+            9,
+            lesson("epoch-10-lesson-1", "API Documentation with Swagger/OpenAPI", 45,
+                () -> com.socraticjava.content.epoch10.Lesson01Content.create()),
+            lesson("epoch-10-lesson-2", "Database Migrations with Flyway", 50,
+                () -> com.socraticjava.content.epoch10.Lesson02Content.create()),
+            lesson("epoch-10-lesson-3", "Pagination, Sorting, and Filtering APIs", 55,
+                () -> com.socraticjava.content.epoch10.Lesson03Content.create()),
+            lesson("epoch-10-lesson-4", "Caching Strategies with Spring Cache and Redis", 50,
+                () -> com.socraticjava.content.epoch10.Lesson04Content.create()),
+            lesson("epoch-10-lesson-5", "Asynchronous Processing and Background Jobs", 55,
+                () -> com.socraticjava.content.epoch10.Lesson05Content.create()),
+            lesson("epoch-10-lesson-6", "Security Best Practices for Production", 60,
+                () -> com.socraticjava.content.epoch10.Lesson06Content.create()),
+            lesson("epoch-10-lesson-7", "Monitoring and Observability with Spring Boot Actuator", 60,
+                () -> com.socraticjava.content.epoch10.Lesson07Content.create()),
+            lesson("epoch-10-lesson-8", "Performance Optimization and Profiling", 65,
+                () -> com.socraticjava.content.epoch10.Lesson08Content.create()),
+            lesson("epoch-10-lesson-9", "Deployment and CI/CD - The Final Journey", 70,
+                () -> com.socraticjava.content.epoch10.Lesson09Content.create())
         );
-
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson01Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson02Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson03Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson04Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson05Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson06Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson07Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson08Content.create());
-        epoch.addLesson(com.socraticjava.content.epoch10.Lesson09Content.create());
-
-        return epoch;
     }
 }
@@ -1,10 +1,16 @@
 package com.socraticjava.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Represents a major learning epoch (e.g., "The Foundation", "Thinking in Objects")
+ *
+ * An epoch either holds its lessons directly, or knows only their summaries
+ * and loads the full lessons (content and challenges) the first time they are
+ * asked for.
  */
 public class Epoch {
     private final String id;
@@ -12,6 +18,9 @@ public class Epoch {
     private final String description;
     private final List<Lesson> lessons;
     private final int estimatedHours;
+    private final List<LessonSummary> lessonSummaries;
+    private Supplier<List<Lesson>> lessonLoader;
+    private volatile boolean loaded;
 
     public Epoch(String id, String title, String description, int estimatedHours) {
         this.id = id;
@@ -19,10 +28,29 @@ public class Epoch {
         this.description = description;
         this.lessons = new ArrayList<>();
         this.estimatedHours = estimatedHours;
+        this.lessonSummaries = null;
+        this.loaded = true;
+    }
+
+    /**
+     * Creates an epoch whose lessons are loaded on first access
+     */
+    public Epoch(String id, String title, String description, int estimatedHours,
+                 List<LessonSummary> lessonSummaries, Supplier<List<Lesson>> lessonLoader) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.lessons = new ArrayList<>();
+        this.estimatedHours = estimatedHours;
+        this.lessonSummaries = Collections.unmodifiableList(new ArrayList<>(lessonSummaries));
+        this.lessonLoader = lessonLoader;
     }
 
     public void addLesson(Lesson lesson) {
-        lessons.add(lesson);
+        ensureLoaded();
+        synchronized (this) {
+            lessons.add(lesson);
+        }
     }
 
     // Getters
@@ -38,8 +66,35 @@ public class Epoch {
         return description;
     }
 
+    /**
+     * Returns the lessons, loading them first if needed
+     */
     public List<Lesson> getLessons() {
-        return new ArrayList<>(lessons); // Return copy for immutability
+        ensureLoaded();
+        synchronized (this) {
+            return new ArrayList<>(lessons); // Return copy for immutability
+        }
+    }
+
+    /**
+     * Returns the lesson summaries without loading any lesson content
+     */
+    public List<LessonSummary> getLessonSummaries() {
+        if (lessonSummaries != null) {
+            return lessonSummaries;
+        }
+        List<LessonSummary> summaries = new ArrayList<>();
+        for (Lesson lesson : getLessons()) {
+            summaries.add(new LessonSummary(lesson.getId(), lesson.getTitle(), lesson.getEstimatedMinutes()));
+        }
+        return summaries;
+    }
+
+    /**
+     * True once the full lessons are in memory
+     */
+    public boolean isLoaded() {
+        return loaded;
     }
 
     public int getEstimatedHours() {
@@ -47,11 +102,29 @@ public class Epoch {
     }
 
     public int getLessonCount() {
-        return lessons.size();
+        if (!loaded) {
+            return lessonSummaries.size();
+        }
+        synchronized (this) {
+            return lessons.size();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                lessons.addAll(lessonLoader.get());
+                lessonLoader = null;
+                loaded = true;
+            }
+        }
     }
 
     @Override
     public String toString() {
-        return title + " (" + lessons.size() + " lessons, ~" + estimatedHours + "h)";
+        return title + " (" + getLessonCount() + " lessons, ~" + estimatedHours + "h)";
     }
 }
@@ -2,6 +2,7 @@ package com.socraticjava.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Represents a single lesson within an epoch
@@ -48,11 +49,24 @@ public class Lesson {
     public static class ContentSection {
         private final String heading;
         private final String content;
+        private final Supplier<String> contentSource;
         private final ContentType type;
 
         public ContentSection(String heading, String content, ContentType type) {
             this.heading = heading;
             this.content = content;
+            this.contentSource = null;
+            this.type = type;
+        }
+
+        /**
+         * Creates a section whose text is fetched from the source on every
+         * {@link #getContent()} call instead of being held in memory
+         */
+        public ContentSection(String heading, Supplier<String> contentSource, ContentType type) {
+            this.heading = heading;
+            this.content = null;
+            this.contentSource = contentSource;
             this.type = type;
         }
 
@@ -61,7 +75,7 @@ public class Lesson {
         }
 
         public String getContent() {
-            return content;
+            return contentSource != null ? contentSource.get() : content;
         }
 
         public ContentType getType() {
@@ -98,6 +112,11 @@ public class Lesson {
             return this;
         }
 
+        public Builder addSection(ContentSection section) {
+            this.contentSections.add(section);
+            return this;
+        }
+
         public Builder addTheory(String heading, String content) {
             return addContent(heading, content, ContentType.THEORY);
         }
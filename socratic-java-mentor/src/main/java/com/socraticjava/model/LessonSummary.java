@@ -0,0 +1,34 @@
+package com.socraticjava.model;
+
+/**
+ * Lightweight description of a lesson, available without loading its content
+ */
+public class LessonSummary {
+    private final String id;
+    private final String title;
+    private final int estimatedMinutes;
+
+    public LessonSummary(String id, String title, int estimatedMinutes) {
+        this.id = id;
+        this.title = title;
+        this.estimatedMinutes = estimatedMinutes;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getEstimatedMinutes() {
+        return estimatedMinutes;
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
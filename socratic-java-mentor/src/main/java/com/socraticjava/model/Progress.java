@@ -1,6 +1,7 @@
 package com.socraticjava.model;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,11 +25,19 @@ public class Progress {
      * Marks a lesson as completed
      */
     public void completeLesson(String lessonId, int challengesCompleted, int challengesTotal) {
+        completeLesson(lessonId, challengesCompleted, challengesTotal, LocalDateTime.now());
+    }
+
+    /**
+     * Marks a lesson as completed at a given time (used when replaying saved changes)
+     */
+    public void completeLesson(String lessonId, int challengesCompleted, int challengesTotal,
+                               LocalDateTime completedAt) {
         LessonProgress lessonProgress = new LessonProgress(
             lessonId,
             challengesCompleted,
             challengesTotal,
-            LocalDateTime.now()
+            completedAt
         );
         completedLessons.put(lessonId, lessonProgress);
     }
@@ -91,6 +100,10 @@ public class Progress {
         this.lastAccessed = LocalDateTime.now();
     }
 
+    public void setLastAccessed(LocalDateTime lastAccessed) {
+        this.lastAccessed = lastAccessed;
+    }
+
     public int getTotalTimeMinutes() {
         return totalTimeMinutes;
     }
@@ -145,5 +158,9 @@ public class Progress {
         public LocalDateTime getCompletedAt() {
             return completedAt;
         }
+
+        public Map<String, Boolean> getCompletedChallenges() {
+            return Collections.unmodifiableMap(completedChallenges);
+        }
     }
 }
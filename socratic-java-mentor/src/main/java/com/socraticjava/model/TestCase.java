@@ -5,24 +5,47 @@ import java.util.Objects;
 
 /**
  * Represents a single test case for validating student code
+ *
+ * A test either passes inputs to the student's program, or is a snippet: a few
+ * lines of Java ending in a return statement, whose returned value is checked.
  */
 public class TestCase {
     private final String description;
     private final Object[] inputs;
     private final Object expectedOutput;
     private final boolean isVisible; // If true, student sees this test before running
+    private final String code; // Snippet test body, e.g. "return result.get(\"apple\");"
 
     public TestCase(String description, Object[] inputs, Object expectedOutput, boolean isVisible) {
         this.description = description;
         this.inputs = inputs;
         this.expectedOutput = expectedOutput;
         this.isVisible = isVisible;
+        this.code = null;
     }
 
     public TestCase(String description, Object[] inputs, Object expectedOutput) {
         this(description, inputs, expectedOutput, true);
     }
 
+    /**
+     * Creates a snippet test; the snippet doubles as the description
+     */
+    public TestCase(String code, String expectedOutput, boolean isVisible) {
+        this(code, expectedOutput, isVisible, null);
+    }
+
+    /**
+     * Creates a snippet test with a human-readable description
+     */
+    public TestCase(String code, String expectedOutput, boolean isVisible, String description) {
+        this.description = description != null ? description : code;
+        this.inputs = new Object[0];
+        this.expectedOutput = expectedOutput;
+        this.isVisible = isVisible;
+        this.code = code;
+    }
+
     // Getters
     public String getDescription() {
         return description;
@@ -40,6 +63,14 @@ public class TestCase {
         return isVisible;
     }
 
+    public String getCode() {
+        return code;
+    }
+
+    public boolean isSnippet() {
+        return code != null;
+    }
+
     @Override
     public String toString() {
         return "TestCase{" +
@@ -47,6 +78,7 @@ public class TestCase {
                 ", inputs=" + Arrays.toString(inputs) +
                 ", expectedOutput=" + expectedOutput +
                 ", visible=" + isVisible +
+                (code != null ? ", code='" + code + '\'' : "") +
                 '}';
     }
 
@@ -58,12 +90,13 @@ public class TestCase {
         return isVisible == testCase.isVisible &&
                 Objects.equals(description, testCase.description) &&
                 Arrays.equals(inputs, testCase.inputs) &&
-                Objects.equals(expectedOutput, testCase.expectedOutput);
+                Objects.equals(expectedOutput, testCase.expectedOutput) &&
+                Objects.equals(code, testCase.code);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(description, expectedOutput, isVisible);
+        int result = Objects.hash(description, expectedOutput, isVisible, code);
         result = 31 * result + Arrays.hashCode(inputs);
         return result;
     }
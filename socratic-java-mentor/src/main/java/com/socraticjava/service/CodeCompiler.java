@@ -7,12 +7,55 @@ import java.io.OutputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Service for compiling student Java code in-memory
  * Uses the Java Compiler API to compile code without writing to disk
+ *
+ * Each compiler keeps a warm {@link CompilerContext} so the system compiler and
+ * its file manager are set up once rather than on every compile. Compilations
+ * on one instance are serialized; use one instance per thread for parallelism.
+ * An optional {@link CompilationCache} short-circuits repeat compiles of
+ * identical source.
  */
-public class CodeCompiler {
+public class CodeCompiler implements AutoCloseable {
+
+    /**
+     * Prefix of the package each batch submission is compiled into
+     */
+    public static final String BATCH_PACKAGE_PREFIX = "batch_";
+
+    static final Pattern PACKAGE_DECLARATION =
+        Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private final CompilerContext context;
+    private final CompilationCache cache;
+    private final List<String> options;
+
+    public CodeCompiler() {
+        this(new CompilerContext(), new CompilationCache());
+    }
+
+    public CodeCompiler(CompilerContext context) {
+        this(context, null);
+    }
+
+    public CodeCompiler(CompilerContext context, CompilationCache cache) {
+        this(context, cache, List.of());
+    }
+
+    /**
+     * @param context Warm javac state to compile with
+     * @param cache Shared result cache, or null to always invoke javac
+     * @param options javac command-line options (part of the cache key)
+     */
+    public CodeCompiler(CompilerContext context, CompilationCache cache, List<String> options) {
+        this.context = context;
+        this.cache = cache;
+        this.options = List.copyOf(options);
+    }
 
     /**
      * Compilation result containing success status, errors, and compiled class
@@ -41,6 +84,65 @@ public class CodeCompiler {
         }
     }
 
+    /**
+     * One student submission in a batch compilation
+     */
+    public static class Submission {
+        private final String id;
+        private final String className;
+        private final String sourceCode;
+
+        public Submission(String id, String className, String sourceCode) {
+            this.id = id;
+            this.className = className;
+            this.sourceCode = sourceCode;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSourceCode() {
+            return sourceCode;
+        }
+    }
+
+    /**
+     * Outcome of one submission within a batch compilation
+     */
+    public static class SubmissionResult {
+        private final Submission submission;
+        private final String qualifiedClassName;
+        private final CompilationResult compilationResult;
+
+        public SubmissionResult(Submission submission, String qualifiedClassName,
+                                CompilationResult compilationResult) {
+            this.submission = submission;
+            this.qualifiedClassName = qualifiedClassName;
+            this.compilationResult = compilationResult;
+        }
+
+        public Submission getSubmission() {
+            return submission;
+        }
+
+        /**
+         * Name to load the submission's main class by; includes the batch
+         * package the submission was compiled into
+         */
+        public String getQualifiedClassName() {
+            return qualifiedClassName;
+        }
+
+        public CompilationResult getCompilationResult() {
+            return compilationResult;
+        }
+    }
+
     /**
      * Compiles Java source code in-memory
      * @param className The name of the class (must match class name in source)
@@ -48,57 +150,298 @@ public class CodeCompiler {
      * @return CompilationResult with success status and any errors
      */
     public CompilationResult compile(String className, String sourceCode) {
+        if (!context.isAvailable()) {
+            return compilerUnavailable();
+        }
+
         try {
-            // Get the Java compiler
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            if (compiler == null) {
-                return new CompilationResult(false,
-                    "Java compiler not available. Make sure you're running with a JDK, not just a JRE.",
-                    null);
+            // Identical source compiles to identical output, so serve repeats from the cache
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = CompilationCache.keyFor(className, sourceCode, options);
+                CompilationResult cached = cache.get(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
             }
 
-            // Prepare in-memory file manager
-            InMemoryFileManager fileManager = new InMemoryFileManager(
-                compiler.getStandardFileManager(null, null, null)
-            );
+            CompilationResult result = runJavac(className, sourceCode);
+            return cacheKey != null ? cache.put(cacheKey, result) : result;
 
-            // Prepare source file
-            JavaFileObject sourceFile = new InMemoryJavaFile(className, sourceCode);
-
-            // Capture compilation errors
-            StringWriter errorWriter = new StringWriter();
-            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        } catch (Exception e) {
+            return new CompilationResult(false, "Compilation error: " + e.getMessage(), null);
+        }
+    }
 
-            // Compile
-            JavaCompiler.CompilationTask task = compiler.getTask(
-                errorWriter,
-                fileManager,
-                diagnostics,
-                null, // No compiler options
-                null, // No annotation processing
-                Collections.singletonList(sourceFile)
-            );
+    /**
+     * Runs javac against the warm context; serialized because the context is not thread-safe
+     */
+    private CompilationResult runJavac(String className, String sourceCode) {
+        return runJavac(Collections.singletonList(new InMemoryJavaFile(className, sourceCode)), false);
+    }
 
-            boolean success = task.call();
+    /**
+     * Compiles several classes together in one javac task, so they can refer to
+     * each other (e.g. a generated test harness calling a student's class)
+     * @param sourcesByClassName Source code keyed by class name
+     * @return CompilationResult holding the classes of every source; errors name the file they occur in
+     */
+    public CompilationResult compileAll(Map<String, String> sourcesByClassName) {
+        if (!context.isAvailable()) {
+            return compilerUnavailable();
+        }
 
-            if (success) {
-                return new CompilationResult(true, "", fileManager.getCompiledClasses());
-            } else {
-                // Format error messages
-                StringBuilder errors = new StringBuilder();
-                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
-                    errors.append("Line ").append(diagnostic.getLineNumber())
-                          .append(": ").append(diagnostic.getMessage(null))
-                          .append("\n");
+        try {
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = CompilationCache.keyFor(sourcesByClassName, options);
+                CompilationResult cached = cache.get(cacheKey);
+                if (cached != null) {
+                    return cached;
                 }
-                return new CompilationResult(false, errors.toString(), null);
             }
 
+            List<JavaFileObject> sourceFiles = new ArrayList<>();
+            sourcesByClassName.forEach((name, source) -> sourceFiles.add(new InMemoryJavaFile(name, source)));
+            CompilationResult result = runJavac(sourceFiles, sourceFiles.size() > 1);
+            return cacheKey != null ? cache.put(cacheKey, result) : result;
+
         } catch (Exception e) {
             return new CompilationResult(false, "Compilation error: " + e.getMessage(), null);
         }
     }
 
+    private synchronized CompilationResult runJavac(List<JavaFileObject> sourceFiles, boolean nameFiles) {
+        // Wrap the warm file manager so this compilation's output stays separate
+        InMemoryFileManager fileManager = new InMemoryFileManager(context.getFileManager());
+
+        // Capture compilation errors
+        StringWriter errorWriter = new StringWriter();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        // Compile
+        JavaCompiler.CompilationTask task = context.getCompiler().getTask(
+            errorWriter,
+            fileManager,
+            diagnostics,
+            options.isEmpty() ? null : options,
+            null, // No annotation processing
+            sourceFiles
+        );
+
+        boolean success = task.call();
+        context.recordCompilation();
+
+        if (success) {
+            return new CompilationResult(true, "", fileManager.getCompiledClasses());
+        }
+
+        return new CompilationResult(false, formatErrors(diagnostics.getDiagnostics(), nameFiles), null);
+    }
+
+    /**
+     * Compiles many submissions with a single javac task
+     *
+     * Each submission is moved into its own package ({@link #BATCH_PACKAGE_PREFIX}
+     * plus its index) so identical class names do not collide; the package clause is
+     * prepended on the first line so reported line numbers are unchanged. Diagnostics
+     * and class files are split back per submission. javac generates no classes once
+     * any file has errors, so clean submissions are recompiled together in a second
+     * pass when the batch contains failures. Submissions that declare their own
+     * package cannot be namespaced and are compiled individually.
+     *
+     * @param submissions Submissions to compile
+     * @return One result per submission, in the same order
+     */
+    public List<SubmissionResult> compileBatch(List<Submission> submissions) {
+        SubmissionResult[] results = new SubmissionResult[submissions.size()];
+        List<Integer> batchIndexes = new ArrayList<>();
+
+        for (int i = 0; i < submissions.size(); i++) {
+            Submission submission = submissions.get(i);
+            Matcher packageMatcher = PACKAGE_DECLARATION.matcher(submission.getSourceCode());
+            if (packageMatcher.find()) {
+                String qualifiedName = packageMatcher.group(1) + "." + submission.getClassName();
+                results[i] = new SubmissionResult(submission, qualifiedName,
+                    compile(qualifiedName, submission.getSourceCode()));
+            } else {
+                batchIndexes.add(i);
+            }
+        }
+
+        if (!batchIndexes.isEmpty()) {
+            if (!context.isAvailable()) {
+                for (int index : batchIndexes) {
+                    results[index] = new SubmissionResult(submissions.get(index),
+                        submissions.get(index).getClassName(), compilerUnavailable());
+                }
+            } else {
+                try {
+                    Map<Integer, SubmissionResult> batchResults = runJavacBatch(submissions, batchIndexes);
+                    // A clean submission only lacks bytecode because another file failed
+                    List<Integer> retry = new ArrayList<>();
+                    for (int index : batchIndexes) {
+                        SubmissionResult result = batchResults.get(index);
+                        if (result == null) {
+                            retry.add(index);
+                        } else {
+                            results[index] = result;
+                        }
+                    }
+                    if (!retry.isEmpty()) {
+                        Map<Integer, SubmissionResult> retryResults = runJavacBatch(submissions, retry);
+                        for (int index : retry) {
+                            SubmissionResult result = retryResults.get(index);
+                            results[index] = result != null ? result : new SubmissionResult(
+                                submissions.get(index), batchClassName(index, submissions.get(index)),
+                                new CompilationResult(false, "Compilation error: no output produced", null));
+                        }
+                    }
+                } catch (Exception e) {
+                    for (int index : batchIndexes) {
+                        results[index] = new SubmissionResult(submissions.get(index),
+                            batchClassName(index, submissions.get(index)),
+                            new CompilationResult(false, "Compilation error: " + e.getMessage(), null));
+                    }
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Compiles the given submissions in one task.
+     * Returns results keyed by submission index; a clean submission with no
+     * output (because another file in the task failed) is left out.
+     */
+    private synchronized Map<Integer, SubmissionResult> runJavacBatch(List<Submission> submissions,
+                                                                      List<Integer> indexes) {
+        InMemoryFileManager fileManager = new InMemoryFileManager(context.getFileManager());
+        Map<JavaFileObject, Integer> sourceIndexes = new IdentityHashMap<>();
+        List<JavaFileObject> sourceFiles = new ArrayList<>();
+
+        for (int index : indexes) {
+            Submission submission = submissions.get(index);
+            String packagePrefix = "package " + batchPackage(index) + "; ";
+            JavaFileObject sourceFile = new InMemoryJavaFile(batchClassName(index, submission),
+                packagePrefix + submission.getSourceCode());
+            sourceIndexes.put(sourceFile, index);
+            sourceFiles.add(sourceFile);
+        }
+
+        StringWriter errorWriter = new StringWriter();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        JavaCompiler.CompilationTask task = context.getCompiler().getTask(
+            errorWriter,
+            fileManager,
+            diagnostics,
+            options.isEmpty() ? null : options,
+            null,
+            sourceFiles
+        );
+
+        boolean success = task.call();
+        context.recordCompilation();
+
+        // Split diagnostics back to the submission whose file produced them
+        Map<Integer, List<Diagnostic<? extends JavaFileObject>>> errorsByIndex = new HashMap<>();
+        List<Diagnostic<? extends JavaFileObject>> globalErrors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            Integer index = diagnostic.getSource() == null ? null : sourceIndexes.get(diagnostic.getSource());
+            if (index == null) {
+                globalErrors.add(diagnostic);
+            } else {
+                errorsByIndex.computeIfAbsent(index, k -> new ArrayList<>()).add(diagnostic);
+            }
+        }
+
+        Map<Integer, SubmissionResult> results = new HashMap<>();
+        for (int index : indexes) {
+            Submission submission = submissions.get(index);
+            String qualifiedName = batchClassName(index, submission);
+            List<Diagnostic<? extends JavaFileObject>> errors = errorsByIndex.get(index);
+
+            if (errors != null || !globalErrors.isEmpty()) {
+                List<Diagnostic<? extends JavaFileObject>> reported = new ArrayList<>(globalErrors);
+                if (errors != null) {
+                    reported.addAll(errors);
+                }
+                results.put(index, new SubmissionResult(submission, qualifiedName,
+                    new CompilationResult(false, formatErrors(reported, false), null)));
+            } else if (success) {
+                String prefix = batchPackage(index) + ".";
+                Map<String, byte[]> classes = new HashMap<>();
+                fileManager.getCompiledClasses().forEach((name, bytes) -> {
+                    if (name.startsWith(prefix)) {
+                        classes.put(name, bytes);
+                    }
+                });
+                results.put(index, new SubmissionResult(submission, qualifiedName,
+                    new CompilationResult(true, "", classes)));
+            }
+        }
+        return results;
+    }
+
+    private static CompilationResult compilerUnavailable() {
+        return new CompilationResult(false,
+            "Java compiler not available. Make sure you're running with a JDK, not just a JRE.",
+            null);
+    }
+
+    private static String batchPackage(int index) {
+        return BATCH_PACKAGE_PREFIX + index;
+    }
+
+    private static String batchClassName(int index, Submission submission) {
+        return batchPackage(index) + "." + submission.getClassName();
+    }
+
+    /**
+     * Formats diagnostics as "Line N: message" lines, prefixed with the file name when asked
+     */
+    private static String formatErrors(List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                                       boolean nameFiles) {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (nameFiles && diagnostic.getSource() != null) {
+                String path = diagnostic.getSource().getName();
+                errors.append(path.substring(path.lastIndexOf('/') + 1)).append(", ");
+            }
+            errors.append("Line ").append(diagnostic.getLineNumber())
+                  .append(": ").append(diagnostic.getMessage(null))
+                  .append("\n");
+        }
+        return errors.toString();
+    }
+
+    /**
+     * Returns the result cache, or null if caching is disabled
+     */
+    public CompilationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Discards the warm file manager; the next compile reopens it
+     */
+    public synchronized void reset() {
+        context.reset();
+    }
+
+    /**
+     * Releases the compiler context
+     */
+    @Override
+    public synchronized void close() {
+        context.close();
+    }
+
     /**
      * Forwarding file manager base class
      */
@@ -128,6 +471,7 @@ public class CodeCompiler {
 
     /**
      * Custom file manager that stores compiled classes in memory
+     * Never closed directly: closing would also close the shared delegate
      */
     private static class InMemoryFileManager extends ForwardingStandardJavaFileManager {
         private final Map<String, byte[]> compiledClasses = new HashMap<>();
@@ -150,7 +494,6 @@ public class CodeCompiler {
          * In-memory representation of a compiled class file
          */
         private class InMemoryClassFile extends SimpleJavaFileObject {
-            private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             private final String className;
 
             protected InMemoryClassFile(String className) {
@@ -161,14 +504,14 @@ public class CodeCompiler {
 
             @Override
             public OutputStream openOutputStream() {
-                return outputStream;
-            }
-
-            @Override
-            public byte[] toByteArray() {
-                byte[] bytes = outputStream.toByteArray();
-                compiledClasses.put(className, bytes);
-                return bytes;
+                // javac closes the stream once the class file is written
+                return new ByteArrayOutputStream() {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        compiledClasses.put(className, toByteArray());
+                    }
+                };
             }
         }
     }
@@ -0,0 +1,159 @@
+package com.socraticjava.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content-addressed cache of compilation results
+ *
+ * Entries are keyed by a SHA-256 hash of the class name, compiler options and
+ * source code, so re-running unchanged code (or byte-identical submissions from
+ * different students) skips javac entirely. The least recently used entry is
+ * evicted once the cache is full. Safe to share between compilers and threads.
+ */
+public class CompilationCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final Map<String, CodeCompiler.CompilationResult> entries;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public CompilationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompilationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CodeCompiler.CompilationResult> eldest) {
+                if (size() > CompilationCache.this.capacity) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Computes the cache key for a compilation
+     */
+    public static String keyFor(String className, String sourceCode, List<String> options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, className);
+            for (String option : options) {
+                update(digest, option);
+            }
+            update(digest, sourceCode);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Computes the cache key for several sources compiled together
+     */
+    public static String keyFor(Map<String, String> sourcesByClassName, List<String> options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String option : options) {
+                update(digest, option);
+            }
+            // Order-independent: the same set of files always hashes the same
+            for (String className : new TreeMap<>(sourcesByClassName).keySet()) {
+                update(digest, className);
+                update(digest, sourcesByClassName.get(className));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        // Length-prefix each part so ("ab", "c") and ("a", "bc") hash differently
+        int length = bytes.length;
+        digest.update(new byte[] {
+            (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length
+        });
+        digest.update(bytes);
+    }
+
+    /**
+     * Returns the cached result for a key, or null on a miss
+     */
+    public synchronized CodeCompiler.CompilationResult get(String key) {
+        CodeCompiler.CompilationResult result = entries.get(key);
+        if (result == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores a result; the compiled class map is copied into an unmodifiable map
+     * so callers sharing the cached entry cannot change it
+     */
+    public synchronized CodeCompiler.CompilationResult put(String key, CodeCompiler.CompilationResult result) {
+        CodeCompiler.CompilationResult frozen = result;
+        if (result.getCompiledClasses() != null) {
+            frozen = new CodeCompiler.CompilationResult(result.isSuccess(), result.getErrors(),
+                Collections.unmodifiableMap(new HashMap<>(result.getCompiledClasses())));
+        }
+        entries.put(key, frozen);
+        return frozen;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Fraction of lookups served from the cache, or 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+}
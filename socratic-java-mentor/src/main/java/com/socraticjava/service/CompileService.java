@@ -0,0 +1,325 @@
+package com.socraticjava.service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs compilations on a fixed pool of worker threads
+ *
+ * Each worker owns its own {@link CodeCompiler} (and so its own warm
+ * {@link CompilerContext}), created the first time the worker runs a job.
+ * Jobs wait in a bounded queue; when it is full, new jobs are either rejected
+ * or the submitting thread waits for space, depending on the saturation policy.
+ */
+public class CompileService implements AutoCloseable {
+
+    /**
+     * What to do with a job when the queue is full
+     */
+    public enum SaturationPolicy {
+        /**
+         * Fail the submission immediately with a RejectedExecutionException
+         */
+        REJECT,
+
+        /**
+         * Block the submitting thread until the queue has room
+         */
+        BLOCK
+    }
+
+    /**
+     * Result of a compile job along with how long it spent queued and compiling
+     */
+    public static class CompileJobResult {
+        private final CodeCompiler.CompilationResult compilationResult;
+        private final long queueWaitNanos;
+        private final long compileNanos;
+
+        public CompileJobResult(CodeCompiler.CompilationResult compilationResult,
+                                long queueWaitNanos, long compileNanos) {
+            this.compilationResult = compilationResult;
+            this.queueWaitNanos = queueWaitNanos;
+            this.compileNanos = compileNanos;
+        }
+
+        public CodeCompiler.CompilationResult getCompilationResult() {
+            return compilationResult;
+        }
+
+        public long getQueueWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos);
+        }
+
+        public long getCompileMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(compileNanos);
+        }
+
+        /**
+         * Total time from submission to completion
+         */
+        public long getLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos + compileNanos);
+        }
+    }
+
+    private final int workerCount;
+    private final int queueCapacity;
+    private final CompilationCache cache;
+    private final List<String> options;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<CodeCompiler> workerCompiler;
+    private final ConcurrentLinkedQueue<CodeCompiler> compilers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Creates a service with one worker per available processor
+     */
+    public CompileService() {
+        this(Runtime.getRuntime().availableProcessors(), 64, SaturationPolicy.BLOCK, new CompilationCache());
+    }
+
+    /**
+     * @param workerCount Number of compile worker threads
+     * @param queueCapacity Maximum number of jobs waiting for a worker
+     * @param policy What to do when the queue is full
+     * @param cache Result cache shared by all workers, or null to disable caching
+     */
+    public CompileService(int workerCount, int queueCapacity, SaturationPolicy policy, CompilationCache cache) {
+        this(workerCount, queueCapacity, policy, cache, List.of());
+    }
+
+    public CompileService(int workerCount, int queueCapacity, SaturationPolicy policy,
+                          CompilationCache cache, List<String> options) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+        this.cache = cache;
+        this.options = List.copyOf(options);
+        this.workerCompiler = ThreadLocal.withInitial(() -> {
+            CodeCompiler compiler = new CodeCompiler(new CompilerContext(), this.cache, this.options);
+            compilers.add(compiler);
+            return compiler;
+        });
+        this.executor = new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new WorkerThreadFactory(),
+            policy == SaturationPolicy.BLOCK ? new BlockingHandler() : new RejectingHandler()
+        );
+    }
+
+    /**
+     * Queues a compilation
+     * @throws RejectedExecutionException if the queue is full under the REJECT
+     *         policy, or the service has been shut down
+     */
+    public CompletableFuture<CompileJobResult> submit(String className, String sourceCode) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<CompileJobResult> future = new CompletableFuture<>();
+
+        executor.execute(new CompileJob(className, sourceCode, submittedAt, future));
+        return future;
+    }
+
+    /**
+     * A queued compilation; kept as its own type so jobs drained on shutdown can be failed
+     */
+    private final class CompileJob implements Runnable {
+        private final String className;
+        private final String sourceCode;
+        private final long submittedAt;
+        private final CompletableFuture<CompileJobResult> future;
+
+        CompileJob(String className, String sourceCode, long submittedAt,
+                   CompletableFuture<CompileJobResult> future) {
+            this.className = className;
+            this.sourceCode = sourceCode;
+            this.submittedAt = submittedAt;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            try {
+                CodeCompiler.CompilationResult result = workerCompiler.get().compile(className, sourceCode);
+                long finishedAt = System.nanoTime();
+                recordLatency(finishedAt - submittedAt);
+                future.complete(new CompileJobResult(result, startedAt - submittedAt, finishedAt - startedAt));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+
+        void fail(String reason) {
+            future.completeExceptionally(new RejectedExecutionException(reason));
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        completedJobs.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * Number of jobs waiting for a worker
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Number of workers currently compiling
+     */
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public long getCompletedJobCount() {
+        return completedJobs.get();
+    }
+
+    public long getRejectedJobCount() {
+        return rejectedJobs.get();
+    }
+
+    /**
+     * Mean submission-to-completion time across completed jobs
+     */
+    public double getAverageLatencyMillis() {
+        long completed = completedJobs.get();
+        return completed == 0 ? 0.0 : totalLatencyNanos.get() / (completed * 1_000_000.0);
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    public CompilationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Stops accepting jobs, waits for queued jobs to finish and releases every
+     * worker's compiler context. Jobs still queued after the wait are failed.
+     * If a worker is stuck in a compilation that ignores interrupts, the
+     * compilers are left open rather than closed under it.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        boolean terminated;
+        try {
+            terminated = executor.awaitTermination(30, TimeUnit.SECONDS);
+            if (!terminated) {
+                failDrained(executor.shutdownNow());
+                terminated = executor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            failDrained(executor.shutdownNow());
+            Thread.currentThread().interrupt();
+            terminated = executor.isTerminated();
+        }
+        if (!terminated) {
+            System.err.println("Compile workers did not stop; leaving their compilers open");
+            return;
+        }
+        CodeCompiler compiler;
+        while ((compiler = compilers.poll()) != null) {
+            compiler.close();
+        }
+    }
+
+    private static void failDrained(List<Runnable> drained) {
+        for (Runnable job : drained) {
+            if (job instanceof CompileJob) {
+                ((CompileJob) job).fail("Compile service was shut down before the job ran");
+            }
+        }
+    }
+
+    /**
+     * Names worker threads and marks them as daemons so they never keep the JVM alive
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger poolNumber = new AtomicInteger(1);
+        private final int pool = poolNumber.getAndIncrement();
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "compile-" + pool + "-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Fails the submission when the queue is full
+     */
+    private class RejectingHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable job, ThreadPoolExecutor pool) {
+            rejectedJobs.incrementAndGet();
+            throw new RejectedExecutionException("Compile queue is full (" + queueCapacity + " jobs waiting)");
+        }
+    }
+
+    /**
+     * Makes the submitting thread wait for queue space
+     */
+    private class BlockingHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable job, ThreadPoolExecutor pool) {
+            if (pool.isShutdown()) {
+                rejectedJobs.incrementAndGet();
+                throw new RejectedExecutionException("Compile service has been shut down");
+            }
+            BlockingQueue<Runnable> queue = pool.getQueue();
+            try {
+                queue.put(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedJobs.incrementAndGet();
+                throw new RejectedExecutionException("Interrupted while waiting for compile queue space", e);
+            }
+            // A shutdown while we waited may never run the queue again; take the job back.
+            // If it is already gone, a worker took it or shutdownNow drained and failed it.
+            if (pool.isShutdown() && queue.remove(job)) {
+                rejectedJobs.incrementAndGet();
+                throw new RejectedExecutionException("Compile service has been shut down");
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.socraticjava.service;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+
+/**
+ * Long-lived javac state reused across compilations
+ *
+ * Looking up the system compiler and opening a StandardJavaFileManager is the
+ * expensive part of a compile: the file manager opens and indexes the platform
+ * module image the first time it is used. A context keeps both warm so repeated
+ * compilations only pay for javac itself.
+ *
+ * A context is not thread-safe. Confine it to one thread (or guard it externally)
+ * and give each worker thread its own context.
+ */
+public class CompilerContext implements AutoCloseable {
+
+    private final JavaCompiler compiler;
+    private StandardJavaFileManager fileManager;
+    private long compilationCount;
+    private boolean closed;
+
+    public CompilerContext() {
+        this(ToolProvider.getSystemJavaCompiler());
+    }
+
+    public CompilerContext(JavaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Returns false when running on a JRE without javac
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    public JavaCompiler getCompiler() {
+        return compiler;
+    }
+
+    /**
+     * Returns the warm file manager, opening it on first use or after a reset
+     */
+    public StandardJavaFileManager getFileManager() {
+        if (closed) {
+            throw new IllegalStateException("Compiler context has been closed");
+        }
+        if (!isAvailable()) {
+            throw new IllegalStateException("Java compiler not available");
+        }
+        if (fileManager == null) {
+            fileManager = compiler.getStandardFileManager(null, null, null);
+        }
+        return fileManager;
+    }
+
+    /**
+     * Records that a compilation has been run against this context
+     */
+    void recordCompilation() {
+        compilationCount++;
+    }
+
+    /**
+     * Number of compilations since the context was created or last reset
+     */
+    public long getCompilationCount() {
+        return compilationCount;
+    }
+
+    /**
+     * Drops the warm file manager so the next compilation reopens it.
+     * Useful to release cached archive handles without discarding the context.
+     */
+    public void reset() {
+        closeFileManager();
+        compilationCount = 0;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the file manager; the context cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        closeFileManager();
+        closed = true;
+    }
+
+    private void closeFileManager() {
+        if (fileManager == null) {
+            return;
+        }
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close compiler file manager: " + e.getMessage());
+        } finally {
+            fileManager = null;
+        }
+    }
+}
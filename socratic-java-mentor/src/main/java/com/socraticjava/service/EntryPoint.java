@@ -0,0 +1,229 @@
+package com.socraticjava.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A resolved way of calling into student code
+ *
+ * Either the class's main(String[]) or a static method named by a challenge's
+ * method signature, e.g. "int add(int a, int b)" or just "add". The method is
+ * looked up once per loaded class and called through a MethodHandle, instead of
+ * a reflective lookup and Method.invoke per test case. Each run loads the
+ * student's classes afresh (and PARALLEL runs do so per test, to keep static
+ * fields apart), so callers resolve once per class loader and nothing is cached
+ * across runs.
+ */
+final class EntryPoint {
+
+    private static final MethodType MAIN_TYPE = MethodType.methodType(void.class, String[].class);
+
+    private final MethodHandle mainHandle;     // (String[])void, for main
+    private final MethodHandle methodHandle;   // (Object[])Object, for other methods
+    private final Class<?>[] parameterTypes;
+    private final boolean returnsValue;
+
+    private EntryPoint(MethodHandle mainHandle, MethodHandle methodHandle,
+                       Class<?>[] parameterTypes, boolean returnsValue) {
+        this.mainHandle = mainHandle;
+        this.methodHandle = methodHandle;
+        this.parameterTypes = parameterTypes;
+        this.returnsValue = returnsValue;
+    }
+
+    /**
+     * Resolves the entry point for a signature; null or blank means main
+     */
+    static EntryPoint resolve(Class<?> clazz, String methodSignature) throws ReflectiveOperationException {
+        return create(clazz, methodSignature == null ? "" : methodSignature.trim());
+    }
+
+    private static EntryPoint create(Class<?> clazz, String signature) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        String name = methodName(signature);
+
+        if (name.isEmpty() || name.equals("main")) {
+            return new EntryPoint(lookup.findStatic(clazz, "main", MAIN_TYPE), null, null, false);
+        }
+
+        Method method = findMethod(clazz, name, parameterTypeNames(signature));
+        MethodHandle handle = lookup.unreflect(method);
+        int arity = method.getParameterCount();
+        // Adapt to a uniform (Object[])Object shape so every call site is the same
+        MethodHandle spread = handle
+            .asType(handle.type().generic())
+            .asSpreader(Object[].class, arity);
+        return new EntryPoint(null, spread, method.getParameterTypes(), method.getReturnType() != void.class);
+    }
+
+    private static Method findMethod(Class<?> clazz, String name, List<String> typeNames)
+            throws NoSuchMethodException {
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (!method.getName().equals(name) || !Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (typeNames == null || parametersMatch(method.getParameterTypes(), typeNames)) {
+                candidates.add(method);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new NoSuchMethodException("Could not find a static method " + name + " in " + clazz.getSimpleName());
+        }
+        if (candidates.size() > 1) {
+            throw new NoSuchMethodException("Method " + name + " is overloaded; the signature must list parameter types");
+        }
+        return candidates.get(0);
+    }
+
+    private static boolean parametersMatch(Class<?>[] parameterTypes, List<String> typeNames) {
+        if (parameterTypes.length != typeNames.size()) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!parameterTypes[i].getSimpleName().equals(typeNames.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * "public static int add(int a, int b)" -> "add"
+     */
+    static String methodName(String signature) {
+        int paren = signature.indexOf('(');
+        String head = (paren >= 0 ? signature.substring(0, paren) : signature).trim();
+        int space = head.lastIndexOf(' ');
+        return space >= 0 ? head.substring(space + 1) : head;
+    }
+
+    /**
+     * "int add(int a, List<String> b)" -> [int, List]; null when no parameter list is given
+     */
+    static List<String> parameterTypeNames(String signature) {
+        int open = signature.indexOf('(');
+        int close = signature.lastIndexOf(')');
+        if (open < 0 || close < open) {
+            return null;
+        }
+        String parameters = stripGenerics(signature.substring(open + 1, close)).trim();
+        List<String> names = new ArrayList<>();
+        if (parameters.isEmpty()) {
+            return names;
+        }
+        for (String parameter : parameters.split(",")) {
+            String type = parameter.trim().replaceFirst("^final\\s+", "").split("\\s+")[0];
+            type = type.replace("...", "[]");
+            names.add(type.substring(type.lastIndexOf('.') + 1));
+        }
+        return names;
+    }
+
+    private static String stripGenerics(String text) {
+        String previous;
+        do {
+            previous = text;
+            text = text.replaceAll("<[^<>]*>", "");
+        } while (!text.equals(previous));
+        return text;
+    }
+
+    boolean isMain() {
+        return mainHandle != null;
+    }
+
+    /**
+     * True when the method's return value (rather than its output) is what gets checked
+     */
+    boolean returnsValue() {
+        return returnsValue;
+    }
+
+    /**
+     * Calls main with the inputs as string arguments
+     */
+    void invokeMain(String[] args) throws Throwable {
+        mainHandle.invokeExact(args);
+    }
+
+    /**
+     * Calls the static method with the inputs converted to its parameter types
+     */
+    Object invokeMethod(Object[] inputs) throws Throwable {
+        Object[] arguments = convertArguments(inputs);
+        return (Object) methodHandle.invokeExact(arguments);
+    }
+
+    private Object[] convertArguments(Object[] inputs) {
+        Object[] values = inputs == null ? new Object[0] : inputs;
+        if (values.length != parameterTypes.length) {
+            throw new IllegalArgumentException("Method expects " + parameterTypes.length
+                + " argument(s) but the test supplies " + values.length);
+        }
+        Object[] arguments = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            arguments[i] = convert(values[i], parameterTypes[i]);
+        }
+        return arguments;
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException("Cannot pass null as " + type.getSimpleName());
+            }
+            return null;
+        }
+        Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        String text = value.toString().trim();
+        if (boxed == Integer.class) {
+            return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(text);
+        }
+        if (boxed == Long.class) {
+            return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(text);
+        }
+        if (boxed == Double.class) {
+            return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(text);
+        }
+        if (boxed == Float.class) {
+            return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(text);
+        }
+        if (boxed == Short.class) {
+            return value instanceof Number ? ((Number) value).shortValue() : Short.parseShort(text);
+        }
+        if (boxed == Byte.class) {
+            return value instanceof Number ? ((Number) value).byteValue() : Byte.parseByte(text);
+        }
+        if (boxed == Boolean.class) {
+            return Boolean.parseBoolean(text);
+        }
+        if (boxed == Character.class && text.length() == 1) {
+            return text.charAt(0);
+        }
+        throw new IllegalArgumentException("Cannot pass " + value + " as " + type.getSimpleName());
+    }
+
+    /**
+     * Renders a return value the way test cases spell expected output
+     */
+    static String format(Object value) {
+        if (value != null && value.getClass().isArray()) {
+            String wrapped = Arrays.deepToString(new Object[] {value});
+            return wrapped.substring(1, wrapped.length() - 1);
+        }
+        return String.valueOf(value);
+    }
+}
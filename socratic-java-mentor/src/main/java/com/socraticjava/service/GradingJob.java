@@ -0,0 +1,191 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.TestCase;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A compile-and-test run of one submission on a background thread
+ *
+ * Progress and the final result are reported to a {@link Listener} from the
+ * job's thread; UI callers hand them over to their own thread. {@link #cancel()}
+ * interrupts the run, which stops the test runner (see {@link TestRunner}), and
+ * guarantees the listener hears nothing more except a cancelled result.
+ */
+public class GradingJob {
+
+    /**
+     * Receives a job's progress. Called from the job's thread.
+     */
+    public interface Listener {
+        /**
+         * A new stage has started, e.g. "Compiling..."
+         */
+        void onStatus(String status);
+
+        void onTestFinished(int finished, int total, TestRunner.TestResult result);
+
+        /**
+         * Called exactly once, when the job completes, fails or is cancelled
+         */
+        void onFinished(Result result);
+    }
+
+    /**
+     * Outcome of a job
+     */
+    public static class Result {
+        private final CodeCompiler.CompilationResult compilationResult;
+        private final TestRunner.TestSuiteResult testResult;
+        private final boolean cancelled;
+        private final String errorMessage;
+
+        private Result(CodeCompiler.CompilationResult compilationResult, TestRunner.TestSuiteResult testResult,
+                       boolean cancelled, String errorMessage) {
+            this.compilationResult = compilationResult;
+            this.testResult = testResult;
+            this.cancelled = cancelled;
+            this.errorMessage = errorMessage;
+        }
+
+        /**
+         * Null if the job was cancelled or failed before compiling finished
+         */
+        public CodeCompiler.CompilationResult getCompilationResult() {
+            return compilationResult;
+        }
+
+        /**
+         * Null unless compilation succeeded and the tests ran
+         */
+        public TestRunner.TestSuiteResult getTestResult() {
+            return testResult;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Set if the job failed unexpectedly
+         */
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * Daemon threads for jobs started without an explicit executor
+     */
+    private static final class DefaultExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "grading-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final Listener listener;
+    private final FutureTask<Result> task;
+    // Guards the listener so nothing is reported after the final result
+    private final Object reportLock = new Object();
+    private boolean finished;
+
+    private GradingJob(SnippetTestEngine engine, String className, String sourceCode,
+                       List<TestCase> testCases, String methodSignature, Listener listener) {
+        this.listener = listener;
+        this.task = new FutureTask<>(() -> run(engine, className, sourceCode, testCases, methodSignature)) {
+            @Override
+            protected void done() {
+                finish();
+            }
+        };
+    }
+
+    /**
+     * Starts grading on a shared pool of daemon threads
+     */
+    public static GradingJob start(SnippetTestEngine engine, String className, String sourceCode,
+                                   List<TestCase> testCases, String methodSignature, Listener listener) {
+        return start(DefaultExecutorHolder.EXECUTOR, engine, className, sourceCode, testCases,
+            methodSignature, listener);
+    }
+
+    public static GradingJob start(ExecutorService executor, SnippetTestEngine engine, String className,
+                                   String sourceCode, List<TestCase> testCases, String methodSignature,
+                                   Listener listener) {
+        GradingJob job = new GradingJob(engine, className, sourceCode, testCases, methodSignature, listener);
+        executor.execute(job.task);
+        return job;
+    }
+
+    /**
+     * Stops the job. The listener receives a cancelled result, unless the job had already finished.
+     */
+    public void cancel() {
+        task.cancel(true);
+    }
+
+    public boolean isCancelled() {
+        return task.isCancelled();
+    }
+
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    private Result run(SnippetTestEngine engine, String className, String sourceCode,
+                       List<TestCase> testCases, String methodSignature) {
+        status("Compiling...");
+        CodeCompiler.CompilationResult compilation = engine.compile(className, sourceCode, testCases);
+        if (!compilation.isSuccess() || Thread.currentThread().isInterrupted()) {
+            return new Result(compilation, null, false, null);
+        }
+
+        status("Running " + testCases.size() + " tests...");
+        TestRunner.TestSuiteResult testResult = engine.runTests(compilation.getCompiledClasses(), className,
+            testCases, methodSignature, (done, total, result) -> {
+                synchronized (reportLock) {
+                    if (!finished) {
+                        listener.onTestFinished(done, total, result);
+                    }
+                }
+            });
+        return new Result(compilation, testResult, false, null);
+    }
+
+    private void status(String status) {
+        synchronized (reportLock) {
+            if (!finished) {
+                listener.onStatus(status);
+            }
+        }
+    }
+
+    /**
+     * Reports the outcome once. On cancellation this runs on the cancelling
+     * thread, while the job's own thread may still be winding down.
+     */
+    private void finish() {
+        Result result;
+        try {
+            result = task.get();
+        } catch (CancellationException e) {
+            result = new Result(null, null, true, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = new Result(null, null, true, null);
+        } catch (ExecutionException e) {
+            result = new Result(null, null, false, "Grading failed: " + e.getCause());
+        }
+        synchronized (reportLock) {
+            finished = true;
+            listener.onFinished(result);
+        }
+    }
+}
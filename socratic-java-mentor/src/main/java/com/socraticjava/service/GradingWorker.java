@@ -0,0 +1,140 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.TestCase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of a forked grading JVM started by {@link WorkerJvmPool}
+ *
+ * Reads run requests from stdin, executes them with an in-process
+ * {@link TestRunner} and writes each test's result to stdout as it finishes. The real stdout file
+ * descriptor is reserved for the protocol: System.out is pointed at a sink
+ * before any student code runs, so stray prints cannot corrupt the stream.
+ *
+ * Arguments: test timeout ms, test CPU limit ms, suite timeout ms, heap
+ * recycle threshold bytes.
+ */
+public class GradingWorker {
+
+    private static final int WARM_UP_ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        long testTimeoutMillis = Long.parseLong(args[0]);
+        long testCpuLimitMillis = Long.parseLong(args[1]);
+        long suiteTimeoutMillis = Long.parseLong(args[2]);
+        long heapRecycleBytes = Long.parseLong(args[3]);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+
+        // Student code must never see the protocol streams
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        OutputCapture.install();
+
+        TestRunner runner = new TestRunner(testTimeoutMillis, testCpuLimitMillis, suiteTimeoutMillis);
+        warmUp(runner);
+
+        out.writeInt(WorkerProtocol.READY);
+        out.flush();
+
+        while (true) {
+            int opcode;
+            try {
+                opcode = in.readInt();
+            } catch (EOFException e) {
+                break; // Parent went away
+            }
+            if (opcode == WorkerProtocol.SHUTDOWN) {
+                break;
+            }
+
+            WorkerProtocol.Request request = WorkerProtocol.readRequest(in);
+            ResultWriter resultWriter = new ResultWriter(out);
+            runner.runTests(request.compiledClasses, request.className, request.testCases,
+                request.methodSignature, resultWriter);
+            if (resultWriter.failure != null) {
+                break; // Parent went away
+            }
+            WorkerProtocol.writeSuiteEnd(out, liveHeapBytes(heapRecycleBytes));
+        }
+
+        // Abandoned test threads are daemons, but exit explicitly in case student code started others
+        System.exit(0);
+    }
+
+    /**
+     * Heap still in use after a run, not counting garbage. Collecting is only worth
+     * it when the raw figure is over the recycle threshold, so most runs skip the GC.
+     */
+    private static long liveHeapBytes(long heapRecycleBytes) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = memory.getHeapMemoryUsage().getUsed();
+        if (used < heapRecycleBytes) {
+            return used;
+        }
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Exercises the class loading, reflection, threading and capture paths so the
+     * first real submission runs on warm code
+     */
+    private static void warmUp(TestRunner runner) {
+        List<TestCase> testCases = List.of(new TestCase("warm-up", new Object[] {"ready"}, "ready"));
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            runner.runTests(Map.of(), WarmUp.class.getName(), testCases);
+        }
+    }
+
+    /**
+     * Streams results to the parent as the runner reports them
+     */
+    private static class ResultWriter implements TestRunner.ProgressListener {
+        private final DataOutputStream out;
+        // First write error; later results are dropped
+        private IOException failure;
+
+        ResultWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void testFinished(int finished, int total, TestRunner.TestResult result) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                WorkerProtocol.writeTestResult(out, result);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Trivial program run during warm-up
+     */
+    public static class WarmUp {
+        public static void main(String[] args) {
+            System.out.println(args[0]);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.socraticjava.service;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.socraticjava.model.Progress;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming Gson adapter for Progress.LessonProgress
+ *
+ * Produces the same JSON as Gson's reflective binding, without reflection or
+ * an intermediate tree.
+ */
+public class LessonProgressAdapter extends TypeAdapter<Progress.LessonProgress> {
+
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Override
+    public void write(JsonWriter out, Progress.LessonProgress lesson) throws IOException {
+        if (lesson == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (lesson.getLessonId() != null) {
+            out.name("lessonId").value(lesson.getLessonId());
+        }
+        out.name("challengesCompleted").value(lesson.getChallengesCompleted());
+        out.name("challengesTotal").value(lesson.getChallengesTotal());
+        out.name("completedChallenges").beginObject();
+        for (Map.Entry<String, Boolean> challenge : lesson.getCompletedChallenges().entrySet()) {
+            out.name(challenge.getKey()).value(challenge.getValue());
+        }
+        out.endObject();
+        writeDateTime(out, "completedAt", lesson.getCompletedAt());
+        out.endObject();
+    }
+
+    @Override
+    public Progress.LessonProgress read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String lessonId = null;
+        int challengesCompleted = 0;
+        int challengesTotal = 0;
+        LocalDateTime completedAt = null;
+        List<String> completedChallenges = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "lessonId" -> lessonId = in.nextString();
+                case "challengesCompleted" -> challengesCompleted = in.nextInt();
+                case "challengesTotal" -> challengesTotal = in.nextInt();
+                case "completedAt" -> completedAt = readDateTime(in);
+                case "completedChallenges" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String challengeId = in.nextName();
+                        if (in.peek() != JsonToken.BOOLEAN) {
+                            in.skipValue();
+                            continue;
+                        }
+                        // A false entry is the same as no entry
+                        boolean completed = in.nextBoolean();
+                        if (completed) {
+                            completedChallenges.add(challengeId);
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Progress.LessonProgress lesson =
+            new Progress.LessonProgress(lessonId, challengesCompleted, challengesTotal, completedAt);
+        for (String challengeId : completedChallenges) {
+            lesson.addCompletedChallenge(challengeId);
+        }
+        return lesson;
+    }
+
+    static void writeDateTime(JsonWriter out, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value.format(formatter));
+        }
+    }
+
+    static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        String text = in.nextString();
+        try {
+            return LocalDateTime.parse(text, formatter);
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException("Bad timestamp " + text + " at " + in.getPath(), e);
+        }
+    }
+}
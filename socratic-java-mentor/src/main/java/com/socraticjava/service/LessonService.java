@@ -1,16 +1,33 @@
 package com.socraticjava.service;
 
+import com.socraticjava.content.CourseCatalog;
 import com.socraticjava.content.EpochRegistry;
+import com.socraticjava.model.Challenge;
 import com.socraticjava.model.Epoch;
 import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service for managing lesson retrieval and navigation
  */
 public class LessonService {
 
+    /**
+     * Daemon thread that prepares the lesson a learner is likely to open next
+     */
+    private static final class NextLessonHolder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "next-lesson-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * Gets all epochs
      */
@@ -25,19 +42,26 @@ public class LessonService {
         return EpochRegistry.getEpochById(epochId);
     }
 
+    /**
+     * Gets the lesson summaries of an epoch without loading lesson content
+     */
+    public List<LessonSummary> getLessonSummaries(String epochId) {
+        return EpochRegistry.getCatalog().getLessonSummaries(epochId);
+    }
+
+    /**
+     * Loads an epoch's content and the next epoch's in the background
+     */
+    public void prefetch(String epochId) {
+        EpochRegistry.prefetch(epochId);
+    }
+
     /**
      * Gets a specific lesson by epoch and lesson ID
      */
     public Lesson getLesson(String epochId, String lessonId) {
-        Epoch epoch = getEpoch(epochId);
-        if (epoch == null) {
-            return null;
-        }
-
-        return epoch.getLessons().stream()
-            .filter(lesson -> lesson.getId().equals(lessonId))
-            .findFirst()
-            .orElse(null);
+        CourseCatalog.LessonEntry entry = entryIn(epochId, lessonId);
+        return entry == null ? null : entry.getLesson();
     }
 
     /**
@@ -45,18 +69,18 @@ public class LessonService {
      * Returns null if at the end of the epoch
      */
     public Lesson getNextLesson(String epochId, String currentLessonId) {
-        Epoch epoch = getEpoch(epochId);
-        if (epoch == null) {
-            return null;
-        }
+        CourseCatalog.LessonEntry entry = entryIn(epochId, currentLessonId);
+        return entry == null ? null : entry.getNext();
+    }
 
-        List<Lesson> lessons = epoch.getLessons();
-        for (int i = 0; i < lessons.size() - 1; i++) {
-            if (lessons.get(i).getId().equals(currentLessonId)) {
-                return lessons.get(i + 1);
-            }
-        }
-        return null;
+    /**
+     * Looks up the next lesson on a background thread, loading its epoch if
+     * needed, so that opening it does not wait on either.
+     * Completes with null at the end of the epoch.
+     */
+    public CompletableFuture<Lesson> prefetchNextLesson(String epochId, String currentLessonId) {
+        return CompletableFuture.supplyAsync(() -> getNextLesson(epochId, currentLessonId),
+            NextLessonHolder.EXECUTOR);
     }
 
     /**
@@ -64,37 +88,47 @@ public class LessonService {
      * Returns null if at the beginning of the epoch
      */
     public Lesson getPreviousLesson(String epochId, String currentLessonId) {
-        Epoch epoch = getEpoch(epochId);
-        if (epoch == null) {
-            return null;
-        }
-
-        List<Lesson> lessons = epoch.getLessons();
-        for (int i = 1; i < lessons.size(); i++) {
-            if (lessons.get(i).getId().equals(currentLessonId)) {
-                return lessons.get(i - 1);
-            }
-        }
-        return null;
+        CourseCatalog.LessonEntry entry = entryIn(epochId, currentLessonId);
+        return entry == null ? null : entry.getPrevious();
     }
 
     /**
      * Gets the first lesson of an epoch
      */
     public Lesson getFirstLesson(String epochId) {
-        Epoch epoch = getEpoch(epochId);
-        if (epoch == null || epoch.getLessons().isEmpty()) {
-            return null;
-        }
-        return epoch.getLessons().get(0);
+        List<Lesson> lessons = EpochRegistry.getCatalog().getLessons(epochId);
+        return lessons.isEmpty() ? null : lessons.get(0);
+    }
+
+    /**
+     * Gets a challenge by ID from any lesson
+     */
+    public Challenge getChallenge(String challengeId) {
+        return EpochRegistry.getCatalog().getChallenge(challengeId);
+    }
+
+    /**
+     * Gets the lesson that contains a challenge
+     */
+    public Lesson getLessonForChallenge(String challengeId) {
+        return EpochRegistry.getCatalog().getLessonForChallenge(challengeId);
     }
 
     /**
      * Gets the total number of lessons across all epochs
      */
     public int getTotalLessonCount() {
-        return getAllEpochs().stream()
-            .mapToInt(Epoch::getLessonCount)
-            .sum();
+        return EpochRegistry.getCatalog().getTotalLessonCount();
+    }
+
+    /**
+     * Looks up a lesson, but only if it belongs to the given epoch
+     */
+    private CourseCatalog.LessonEntry entryIn(String epochId, String lessonId) {
+        CourseCatalog.LessonEntry entry = EpochRegistry.getCatalog().getLessonEntry(lessonId);
+        if (entry == null || !entry.getEpoch().getId().equals(epochId)) {
+            return null;
+        }
+        return entry;
     }
 }
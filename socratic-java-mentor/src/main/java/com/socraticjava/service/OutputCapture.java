@@ -0,0 +1,262 @@
+package com.socraticjava.service;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Per-thread capture of System.out
+ *
+ * Swapping System.out around each test only works while one test runs at a
+ * time. Instead, a routing PrintStream is installed as System.out once, and each
+ * write goes to the stream registered for the writing thread. Threads started
+ * while a capture is active inherit it, so output from helper threads a student
+ * spawns lands in the same buffer. Ending a capture closes it for every thread
+ * that inherited it; a thread that outlives the test (a pool worker created
+ * during it, say) drops the capture on its next write. Threads with no open
+ * capture write to the original System.out.
+ */
+public final class OutputCapture {
+
+    private static final InheritableThreadLocal<Capture> CAPTURE = new InheritableThreadLocal<>();
+
+    private static RoutingPrintStream router;
+
+    private OutputCapture() {
+    }
+
+    /**
+     * Installs the routing stream as System.out if it is not already installed
+     */
+    public static synchronized void install() {
+        if (router != null && System.out == router) {
+            return;
+        }
+        router = new RoutingPrintStream(System.out);
+        System.setOut(router);
+    }
+
+    /**
+     * Routes the calling thread's System.out writes to the given stream until {@link #end()}
+     */
+    public static void begin(OutputStream sink) {
+        install();
+        CAPTURE.set(new Capture(sink instanceof PrintStream ? (PrintStream) sink : new PrintStream(sink, true)));
+    }
+
+    /**
+     * Stops capturing for the calling thread
+     */
+    public static void end() {
+        Capture capture = CAPTURE.get();
+        CAPTURE.remove();
+        if (capture != null) {
+            PrintStream stream = capture.stream;
+            // Closes it for inheriting threads too, and lets the buffer be collected
+            capture.stream = null;
+            if (stream != null) {
+                stream.flush();
+            }
+        }
+    }
+
+    /**
+     * A test's capture, shared by the thread that began it and the threads it started
+     */
+    private static final class Capture {
+        volatile PrintStream stream;
+
+        Capture(PrintStream stream) {
+            this.stream = stream;
+        }
+    }
+
+    /**
+     * System.out replacement that forwards every call to the current thread's capture.
+     * Each capture is its own PrintStream, so concurrent writers never share a lock.
+     */
+    private static class RoutingPrintStream extends PrintStream {
+        private final PrintStream fallback;
+
+        RoutingPrintStream(PrintStream fallback) {
+            super(fallback, true);
+            this.fallback = fallback;
+        }
+
+        private PrintStream target() {
+            Capture capture = CAPTURE.get();
+            if (capture != null) {
+                PrintStream stream = capture.stream;
+                if (stream != null) {
+                    return stream;
+                }
+                // Inherited from a test that has ended
+                CAPTURE.remove();
+            }
+            return fallback;
+        }
+
+        @Override
+        public void write(int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            target().write(buf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void close() {
+            // Never close the shared System.out; student code may try
+            target().flush();
+        }
+
+        @Override
+        public boolean checkError() {
+            return target().checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            target().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            target().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            target().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            target().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            target().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            target().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            target().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            target().append(c);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.socraticjava.service;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.socraticjava.model.Progress;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Streaming Gson adapter for Progress
+ *
+ * Produces the same JSON as Gson's reflective binding, without reflection or
+ * an intermediate tree, so progress files and cohort exports can be read and
+ * written straight from and to a stream.
+ */
+public class ProgressAdapter extends TypeAdapter<Progress> {
+
+    private final LessonProgressAdapter lessonAdapter = new LessonProgressAdapter();
+
+    @Override
+    public void write(JsonWriter out, Progress progress) throws IOException {
+        if (progress == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (progress.getCurrentEpochId() != null) {
+            out.name("currentEpochId").value(progress.getCurrentEpochId());
+        }
+        if (progress.getCurrentLessonId() != null) {
+            out.name("currentLessonId").value(progress.getCurrentLessonId());
+        }
+        out.name("completedLessons").beginObject();
+        for (Map.Entry<String, Progress.LessonProgress> entry : progress.getCompletedLessons().entrySet()) {
+            out.name(entry.getKey());
+            lessonAdapter.write(out, entry.getValue());
+        }
+        out.endObject();
+        LessonProgressAdapter.writeDateTime(out, "lastAccessed", progress.getLastAccessed());
+        out.name("totalTimeMinutes").value(progress.getTotalTimeMinutes());
+        out.endObject();
+    }
+
+    @Override
+    public Progress read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Progress progress = new Progress();
+        String currentLessonId = null;
+        boolean lastAccessedRead = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                if (name.equals("lastAccessed")) {
+                    progress.setLastAccessed(null);
+                    lastAccessedRead = true;
+                }
+                continue;
+            }
+            switch (name) {
+                case "currentEpochId" -> progress.setCurrentEpochId(in.nextString());
+                case "currentLessonId" -> currentLessonId = in.nextString();
+                case "lastAccessed" -> {
+                    progress.setLastAccessed(LessonProgressAdapter.readDateTime(in));
+                    lastAccessedRead = true;
+                }
+                case "totalTimeMinutes" -> progress.addTimeMinutes(in.nextInt());
+                case "completedLessons" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String lessonId = in.nextName();
+                        Progress.LessonProgress lesson = lessonAdapter.read(in);
+                        if (lesson != null) {
+                            progress.getCompletedLessons().put(lessonId, lesson);
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        // setCurrentLessonId touches lastAccessed, so restore the saved time afterwards
+        if (currentLessonId != null) {
+            LocalDateTime lastAccessed = progress.getLastAccessed();
+            progress.setCurrentLessonId(currentLessonId);
+            if (lastAccessedRead) {
+                progress.setLastAccessed(lastAccessed);
+            }
+        }
+        return progress;
+    }
+}
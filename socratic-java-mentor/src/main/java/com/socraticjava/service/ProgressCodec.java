@@ -0,0 +1,271 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.Progress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link Progress}
+ *
+ * Layout (version 1):
+ * <pre>
+ *   "SJP" version
+ *   string table: count, then each string as length + UTF-8 bytes
+ *   currentEpochId, currentLessonId   string refs (0 = null, n = table[n - 1])
+ *   lastAccessed                      timestamp
+ *   totalTimeMinutes
+ *   lesson count, then per lesson:
+ *     key, lessonId                   string refs
+ *     challengesCompleted, challengesTotal
+ *     completedAt                     timestamp
+ *     completed challenge count, then a string ref per challenge
+ * </pre>
+ * Every number is an unsigned LEB128 varint. Lesson and challenge IDs repeat a
+ * lot, so each distinct string is stored once and referenced by index. A
+ * timestamp is a flags varint (1 = present, 2 = has nanos, 4 = nanos stored in
+ * microseconds), the zigzag-encoded difference in seconds from the previous
+ * timestamp, then the sub-second part if any. Completion times are close
+ * together, so a timestamp takes about six bytes instead of a 26-character
+ * ISO string.
+ * Only completed challenges are stored, which is all the model ever records.
+ */
+public final class ProgressCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'S', 'J', 'P'};
+
+    private ProgressCodec() {
+    }
+
+    /**
+     * True if the data starts with this codec's header, of any version
+     */
+    public static boolean isBinary(byte[] data) {
+        return data.length > MAGIC.length
+            && data[0] == MAGIC[0] && data[1] == MAGIC[1] && data[2] == MAGIC[2];
+    }
+
+    public static byte[] encode(Progress progress) {
+        // Intern every string first so the table can precede the body
+        Map<String, Integer> refs = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        intern(progress.getCurrentEpochId(), refs, table);
+        intern(progress.getCurrentLessonId(), refs, table);
+        for (Map.Entry<String, Progress.LessonProgress> entry : progress.getCompletedLessons().entrySet()) {
+            intern(entry.getKey(), refs, table);
+            intern(entry.getValue().getLessonId(), refs, table);
+            for (Map.Entry<String, Boolean> challenge : entry.getValue().getCompletedChallenges().entrySet()) {
+                if (Boolean.TRUE.equals(challenge.getValue())) {
+                    intern(challenge.getKey(), refs, table);
+                }
+            }
+        }
+
+        Writer out = new Writer();
+        out.bytes.write(MAGIC, 0, MAGIC.length);
+        out.bytes.write(VERSION);
+        out.varint(table.size());
+        for (String value : table) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.varint(utf8.length);
+            out.bytes.write(utf8, 0, utf8.length);
+        }
+
+        out.ref(progress.getCurrentEpochId(), refs);
+        out.ref(progress.getCurrentLessonId(), refs);
+        out.timestamp(progress.getLastAccessed());
+        out.varint(progress.getTotalTimeMinutes());
+
+        Map<String, Progress.LessonProgress> lessons = progress.getCompletedLessons();
+        out.varint(lessons.size());
+        for (Map.Entry<String, Progress.LessonProgress> entry : lessons.entrySet()) {
+            Progress.LessonProgress lesson = entry.getValue();
+            out.ref(entry.getKey(), refs);
+            out.ref(lesson.getLessonId(), refs);
+            out.varint(lesson.getChallengesCompleted());
+            out.varint(lesson.getChallengesTotal());
+            out.timestamp(lesson.getCompletedAt());
+
+            List<String> completed = new ArrayList<>();
+            for (Map.Entry<String, Boolean> challenge : lesson.getCompletedChallenges().entrySet()) {
+                if (Boolean.TRUE.equals(challenge.getValue())) {
+                    completed.add(challenge.getKey());
+                }
+            }
+            out.varint(completed.size());
+            for (String challengeId : completed) {
+                out.ref(challengeId, refs);
+            }
+        }
+        return out.bytes.toByteArray();
+    }
+
+    public static Progress decode(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            throw new IOException("Not binary progress data");
+        }
+        Reader in = new Reader(data, MAGIC.length);
+        int version = in.nextByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported progress format version " + version);
+        }
+
+        int tableSize = in.count();
+        String[] table = new String[tableSize];
+        for (int i = 0; i < tableSize; i++) {
+            int length = in.count();
+            table[i] = new String(data, in.take(length), length, StandardCharsets.UTF_8);
+        }
+
+        Progress progress = new Progress();
+        progress.setCurrentEpochId(in.ref(table));
+        progress.setCurrentLessonId(in.ref(table));
+        progress.setLastAccessed(in.timestamp());
+        progress.addTimeMinutes(in.count());
+
+        int lessonCount = in.count();
+        for (int i = 0; i < lessonCount; i++) {
+            String key = in.ref(table);
+            String lessonId = in.ref(table);
+            int challengesCompleted = in.count();
+            int challengesTotal = in.count();
+            LocalDateTime completedAt = in.timestamp();
+            Progress.LessonProgress lesson =
+                new Progress.LessonProgress(lessonId, challengesCompleted, challengesTotal, completedAt);
+            int challengeCount = in.count();
+            for (int j = 0; j < challengeCount; j++) {
+                lesson.addCompletedChallenge(in.ref(table));
+            }
+            progress.getCompletedLessons().put(key, lesson);
+        }
+        return progress;
+    }
+
+    private static void intern(String value, Map<String, Integer> refs, List<String> table) {
+        if (value != null && !refs.containsKey(value)) {
+            refs.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    private static final class Writer {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        long previousSeconds;
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+        }
+
+        void ref(String value, Map<String, Integer> refs) {
+            varint(value == null ? 0 : refs.get(value) + 1);
+        }
+
+        void timestamp(LocalDateTime time) {
+            if (time == null) {
+                varint(0);
+                return;
+            }
+            long seconds = time.toEpochSecond(ZoneOffset.UTC);
+            int nanos = time.getNano();
+            boolean micros = nanos % 1000 == 0;
+            varint(nanos == 0 ? 1 : micros ? 7 : 3);
+            long delta = seconds - previousSeconds;
+            varint((delta << 1) ^ (delta >> 63));
+            if (nanos != 0) {
+                varint(micros ? nanos / 1000 : nanos);
+            }
+            previousSeconds = seconds;
+        }
+    }
+
+    private static final class Reader {
+        final byte[] data;
+        int position;
+        long previousSeconds;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int nextByte() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Truncated progress data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = nextByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in progress data");
+        }
+
+        int count() throws IOException {
+            long value = varint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Value out of range in progress data: " + value);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reserves the next length bytes and returns their offset
+         */
+        int take(int length) throws IOException {
+            if (length > data.length - position) {
+                throw new IOException("Truncated progress data");
+            }
+            int start = position;
+            position += length;
+            return start;
+        }
+
+        String ref(String[] table) throws IOException {
+            int ref = count();
+            if (ref > table.length) {
+                throw new IOException("Bad string reference in progress data: " + ref);
+            }
+            return ref == 0 ? null : table[ref - 1];
+        }
+
+        LocalDateTime timestamp() throws IOException {
+            int flags = count();
+            if ((flags & 1) == 0) {
+                return null;
+            }
+            long zigzag = varint();
+            long seconds = previousSeconds + ((zigzag >>> 1) ^ -(zigzag & 1));
+            int nanos = (flags & 2) != 0 ? count() : 0;
+            if ((flags & 4) != 0) {
+                nanos *= 1000;
+            }
+            previousSeconds = seconds;
+            try {
+                return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+            } catch (DateTimeException e) {
+                throw new IOException("Bad timestamp in progress data", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.socraticjava.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.socraticjava.model.Progress;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of progress events, replayed on top of the last snapshot
+ *
+ * Each event is one line of JSON, synced to disk when appended. A crash in the
+ * middle of an append can only tear the last line, which is skipped when the
+ * journal is read back. Replaying an event twice has no further effect, so it
+ * does not matter if the snapshot already contains some journaled events.
+ */
+public class ProgressJournal implements Closeable {
+
+    /**
+     * Kinds of progress change that are journaled
+     */
+    public enum EventType {
+        CHALLENGE_COMPLETED,
+        LESSON_COMPLETED,
+        CURRENT_LESSON_CHANGED
+    }
+
+    /**
+     * A single progress change
+     */
+    public static class Event {
+        private final EventType type;
+        private final String epochId;
+        private final String lessonId;
+        private final String challengeId;
+        private final int challengesCompleted;
+        private final int challengesTotal;
+        private final LocalDateTime at;
+
+        private Event(EventType type, String epochId, String lessonId, String challengeId,
+                      int challengesCompleted, int challengesTotal) {
+            this.type = type;
+            this.epochId = epochId;
+            this.lessonId = lessonId;
+            this.challengeId = challengeId;
+            this.challengesCompleted = challengesCompleted;
+            this.challengesTotal = challengesTotal;
+            this.at = LocalDateTime.now();
+        }
+
+        public static Event challengeCompleted(String lessonId, String challengeId) {
+            return new Event(EventType.CHALLENGE_COMPLETED, null, lessonId, challengeId, 0, 0);
+        }
+
+        public static Event lessonCompleted(String lessonId, int challengesCompleted, int challengesTotal) {
+            return new Event(EventType.LESSON_COMPLETED, null, lessonId, null, challengesCompleted, challengesTotal);
+        }
+
+        public static Event currentLessonChanged(String epochId, String lessonId) {
+            return new Event(EventType.CURRENT_LESSON_CHANGED, epochId, lessonId, null, 0, 0);
+        }
+
+        /**
+         * Applies this change to a progress object
+         */
+        public void applyTo(Progress progress) {
+            switch (type) {
+                case CHALLENGE_COMPLETED -> progress.completeChallenge(lessonId, challengeId);
+                case LESSON_COMPLETED ->
+                    progress.completeLesson(lessonId, challengesCompleted, challengesTotal, at);
+                case CURRENT_LESSON_CHANGED -> {
+                    progress.setCurrentEpochId(epochId);
+                    progress.setCurrentLessonId(lessonId);
+                }
+            }
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        public String getLessonId() {
+            return lessonId;
+        }
+
+        public LocalDateTime getAt() {
+            return at;
+        }
+    }
+
+    private final Path path;
+    private final Gson gson;
+    private FileChannel channel;
+
+    /**
+     * @param path Journal file
+     * @param gson Gson able to (de)serialize LocalDateTime; must not pretty print
+     */
+    public ProgressJournal(Path path, Gson gson) {
+        this.path = path;
+        this.gson = gson;
+    }
+
+    /**
+     * Reads every intact event, in the order they were appended
+     */
+    public synchronized List<Event> read() throws IOException {
+        List<Event> events = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return events;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Event event = gson.fromJson(line, Event.class);
+                    if (event != null && event.type != null) {
+                        events.add(event);
+                    }
+                } catch (JsonParseException e) {
+                    System.err.println("Skipping damaged progress journal entry at line " + lineNumber);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Appends an event and syncs it to disk
+     */
+    public synchronized void append(Event event) throws IOException {
+        if (channel == null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        // Start on a fresh line so a torn record from a crash cannot swallow this one
+        ByteBuffer buffer = ByteBuffer.wrap(("\n" + gson.toJson(event) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Atomically replaces the journal with the given events; used after a snapshot
+     * has absorbed the others
+     */
+    public synchronized void rewrite(List<Event> events) throws IOException {
+        close();
+        StringBuilder content = new StringBuilder();
+        for (Event event : events) {
+            content.append(gson.toJson(event)).append('\n');
+        }
+        AtomicFiles.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the journal file
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.Progress;
+
+/**
+ * Persistent storage of learners' progress
+ *
+ * {@link ProgressTracker} stores the single learner of a desktop install and
+ * ignores learner IDs; {@link ShardedProgressStore} stores many learners for a
+ * shared server.
+ */
+public interface ProgressStore extends AutoCloseable {
+
+    /**
+     * Returns a learner's progress, or a new Progress if nothing is saved yet
+     */
+    Progress load(String learnerId);
+
+    /**
+     * Applies a change to a learner's progress and persists it
+     */
+    void record(String learnerId, Progress progress, ProgressJournal.Event event);
+
+    /**
+     * Persists a learner's whole progress; may return before it reaches disk
+     */
+    void save(String learnerId, Progress progress);
+
+    /**
+     * Writes everything saved so far to disk, waiting until it is done
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the store
+     */
+    @Override
+    void close();
+}
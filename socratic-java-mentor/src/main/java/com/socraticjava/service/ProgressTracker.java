@@ -2,82 +2,395 @@ package com.socraticjava.service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.socraticjava.model.Progress;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for persisting and loading student progress
+ *
+ * Progress lives in a snapshot (progress.bin) plus a journal of the changes
+ * made since (progress.journal). {@link #record} appends each change to the
+ * journal, which is much cheaper than rewriting the snapshot; every
+ * {@link #DEFAULT_SNAPSHOT_INTERVAL} changes the snapshot is rewritten and the
+ * journal compacted. Snapshots are replaced atomically (temp file + rename), so
+ * a crash leaves either the old or the new snapshot, never a torn one.
+ * Snapshots use the compact {@link ProgressCodec} format; a progress.json from
+ * older versions is read once and replaced by the first binary snapshot, and
+ * {@link #exportJson} writes JSON for debugging.
+ *
+ * Disk writes happen on a single background writer thread. Snapshot saves wait
+ * out the save delay so a burst of updates becomes one write. Call
+ * {@link #close()} on shutdown to flush anything still pending.
+ *
+ * As a {@link ProgressStore} it serves the one learner of this install, so
+ * learner IDs are ignored.
  */
-public class ProgressTracker {
+public class ProgressTracker implements ProgressStore {
+
+    public static final long DEFAULT_SAVE_DELAY_MILLIS = 500;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
 
     private static final String PROGRESS_DIR = System.getProperty("user.home") + "/.socratic-java";
-    private static final String PROGRESS_FILE = PROGRESS_DIR + "/progress.json";
+    private static final String PROGRESS_FILE = PROGRESS_DIR + "/progress.bin";
+    private static final String LEGACY_PROGRESS_FILE = PROGRESS_DIR + "/progress.json";
+    private static final String JOURNAL_FILE = PROGRESS_DIR + "/progress.journal";
     private final Gson gson;
+    private final ProgressJournal journal;
+    private final long saveDelayMillis;
+    private final int snapshotInterval;
+
+    // Background writer state, guarded by this
+    private ScheduledExecutorService writer;
+    private ScheduledFuture<?> scheduledWrite;
+    private byte[] pendingSnapshot;
+    private int pendingSnapshotEventCount;
+    private final List<ProgressJournal.Event> unsnapshottedEvents = new ArrayList<>();
+    private boolean closed;
 
     public ProgressTracker() {
+        this(DEFAULT_SAVE_DELAY_MILLIS, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param saveDelayMillis How long the background writer waits to coalesce snapshot saves
+     * @param snapshotInterval Number of journaled changes after which a snapshot is taken
+     */
+    public ProgressTracker(long saveDelayMillis, int snapshotInterval) {
+        if (saveDelayMillis < 0) {
+            throw new IllegalArgumentException("Save delay must not be negative: " + saveDelayMillis);
+        }
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+        }
         this.gson = new GsonBuilder()
             .setPrettyPrinting()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapter(Progress.class, new ProgressAdapter())
+            .registerTypeAdapter(Progress.LessonProgress.class, new LessonProgressAdapter())
+            .create();
+        Gson journalGson = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
+        this.journal = new ProgressJournal(Paths.get(JOURNAL_FILE), journalGson);
+        this.saveDelayMillis = saveDelayMillis;
+        this.snapshotInterval = snapshotInterval;
     }
 
     /**
-     * Saves progress to disk
+     * Applies a change to the progress and journals it
+     *
+     * The journal write happens in the background; once enough changes have
+     * accumulated a snapshot save is queued as well. The change is applied
+     * under the same lock snapshots are encoded under, so a snapshot never
+     * sees half of it.
+     */
+    public void record(Progress progress, ProgressJournal.Event event) {
+        boolean snapshotDue;
+        synchronized (this) {
+            event.applyTo(progress);
+            unsnapshottedEvents.add(event);
+            snapshotDue = unsnapshottedEvents.size() >= snapshotInterval;
+            if (closed) {
+                appendToJournal(event);
+            } else {
+                writer().execute(() -> appendToJournal(event));
+            }
+        }
+        if (snapshotDue) {
+            saveProgressAsync(progress);
+        }
+    }
+
+    /**
+     * Saves a snapshot of the progress to disk, waiting for the write to finish
      */
     public void saveProgress(Progress progress) {
+        // Go through the writer so an older pending snapshot cannot land afterwards
+        saveProgressAsync(progress);
+        flush();
+    }
+
+    /**
+     * Queues a snapshot of the progress to be saved by the background writer and
+     * returns immediately
+     *
+     * The progress is snapshotted on the calling thread, so it may keep being
+     * modified while the write is pending. Saves made within the save delay of
+     * each other are written once, with the latest snapshot.
+     */
+    public void saveProgressAsync(Progress progress) {
+        synchronized (this) {
+            // record() applies events under this lock, so the snapshot holds exactly the counted events
+            pendingSnapshotEventCount = unsnapshottedEvents.size();
+            pendingSnapshot = ProgressCodec.encode(progress);
+            if (closed) {
+                writePending();
+            } else if (scheduledWrite == null) {
+                scheduledWrite = writer().schedule(this::writePending, saveDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes any pending changes now and waits for them to complete
+     */
+    @Override
+    public void flush() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = writer;
+        }
+        if (executor == null) {
+            return;
+        }
         try {
-            // Create directory if it doesn't exist
-            Files.createDirectories(Paths.get(PROGRESS_DIR));
+            // The writer is single-threaded, so this also waits for writes already queued
+            executor.submit(this::writePending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Failed to save progress: " + e.getCause().getMessage());
+        }
+    }
 
-            // Serialize to JSON
-            String json = gson.toJson(progress);
+    /**
+     * Flushes pending saves and stops the background writer; later saves are written synchronously
+     */
+    @Override
+    public void close() {
+        flush();
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            closed = true;
+            executor = writer;
+            writer = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close progress journal: " + e.getMessage());
+        }
+    }
+
+    private synchronized ScheduledExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "progress-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writer;
+    }
+
+    private void appendToJournal(ProgressJournal.Event event) {
+        try {
+            journal.append(event);
+        } catch (IOException e) {
+            System.err.println("Failed to journal progress: " + e.getMessage());
+        }
+    }
 
-            // Write to file
-            Files.writeString(Paths.get(PROGRESS_FILE), json);
+    private void writePending() {
+        byte[] snapshot;
+        int coveredEvents;
+        synchronized (this) {
+            snapshot = pendingSnapshot;
+            coveredEvents = pendingSnapshotEventCount;
+            pendingSnapshot = null;
+            if (scheduledWrite != null) {
+                scheduledWrite.cancel(false);
+                scheduledWrite = null;
+            }
+        }
+        if (snapshot == null) {
+            return;
+        }
 
+        try {
+            AtomicFiles.write(Paths.get(PROGRESS_FILE), snapshot);
         } catch (IOException e) {
+            // Keep the journal intact: it still holds every change since the last good snapshot
             System.err.println("Failed to save progress: " + e.getMessage());
+            return;
+        }
+        retireLegacySnapshot();
+
+        // Compact: keep only changes made after the snapshot was taken
+        List<ProgressJournal.Event> remaining;
+        synchronized (this) {
+            unsnapshottedEvents.subList(0, Math.min(coveredEvents, unsnapshottedEvents.size())).clear();
+            if (pendingSnapshot != null) {
+                pendingSnapshotEventCount = Math.max(0, pendingSnapshotEventCount - coveredEvents);
+            }
+            remaining = new ArrayList<>(unsnapshottedEvents);
+        }
+        try {
+            journal.rewrite(remaining);
+        } catch (IOException e) {
+            // Harmless: replaying events the snapshot already contains changes nothing
+            System.err.println("Failed to compact progress journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps a migrated progress.json as a backup so it is not read again
+     */
+    private void retireLegacySnapshot() {
+        Path legacy = Paths.get(LEGACY_PROGRESS_FILE);
+        if (Files.exists(legacy)) {
+            try {
+                Files.move(legacy, Paths.get(LEGACY_PROGRESS_FILE + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("Failed to retire progress.json: " + e.getMessage());
+            }
         }
     }
 
     /**
-     * Loads progress from disk
+     * Loads progress from disk: the last snapshot with the journal replayed on top
      * Returns a new Progress object if no saved progress exists
      */
     public Progress loadProgress() {
+        boolean legacy = !Files.exists(Paths.get(PROGRESS_FILE)) && Files.exists(Paths.get(LEGACY_PROGRESS_FILE));
+        Progress progress = legacy ? loadLegacySnapshot() : loadSnapshot();
         try {
-            File file = new File(PROGRESS_FILE);
-            if (!file.exists()) {
-                return new Progress();
+            List<ProgressJournal.Event> events = journal.read();
+            for (ProgressJournal.Event event : events) {
+                event.applyTo(progress);
+            }
+            synchronized (this) {
+                unsnapshottedEvents.clear();
+                unsnapshottedEvents.addAll(events);
             }
+        } catch (IOException e) {
+            System.err.println("Failed to read progress journal: " + e.getMessage());
+        }
+        if (legacy) {
+            // Migrate: the first binary snapshot retires the JSON file
+            saveProgressAsync(progress);
+        }
+        return progress;
+    }
 
-            String json = Files.readString(Paths.get(PROGRESS_FILE));
-            return gson.fromJson(json, Progress.class);
+    private Progress loadSnapshot() {
+        Path snapshotFile = Paths.get(PROGRESS_FILE);
+        byte[] data;
+        try {
+            if (!Files.exists(snapshotFile)) {
+                return new Progress();
+            }
+            data = Files.readAllBytes(snapshotFile);
+        } catch (IOException e) {
+            System.err.println("Failed to load progress: " + e.getMessage());
+            return new Progress();
+        }
 
+        try {
+            return ProgressCodec.decode(data);
         } catch (IOException e) {
+            setAsideDamaged(snapshotFile, e);
+            return new Progress();
+        }
+    }
+
+    /**
+     * Reads a progress.json written before the binary format
+     */
+    private Progress loadLegacySnapshot() {
+        Path snapshotFile = Paths.get(LEGACY_PROGRESS_FILE);
+        // Stream straight from the file instead of reading it into a string first
+        try (JsonReader reader = gson.newJsonReader(Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8))) {
+            Progress progress = gson.fromJson(reader, Progress.class);
+            return progress != null ? progress : new Progress();
+
+        } catch (IOException | JsonIOException e) {
             System.err.println("Failed to load progress: " + e.getMessage());
             return new Progress();
+        } catch (JsonParseException e) {
+            setAsideDamaged(snapshotFile, e);
+            return new Progress();
         }
     }
 
+    private static void setAsideDamaged(Path snapshotFile, Exception cause) {
+        // Keep the damaged file for inspection instead of overwriting it on the next save
+        System.err.println("Saved progress is damaged, starting from the journal: " + cause.getMessage());
+        try {
+            Files.move(snapshotFile, Paths.get(snapshotFile + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException moveFailure) {
+            System.err.println("Failed to set aside damaged progress: " + moveFailure.getMessage());
+        }
+    }
+
+    /**
+     * Writes progress as pretty-printed JSON, for debugging or hand inspection
+     */
+    public void exportJson(Progress progress, Path target) throws IOException {
+        AtomicFiles.write(target, out -> {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            gson.toJson(progress, Progress.class, writer);
+            writer.flush();
+        });
+    }
+
     /**
      * Clears all saved progress
      */
     public void clearProgress() {
+        // Drop any pending save so it cannot recreate the files
+        synchronized (this) {
+            pendingSnapshot = null;
+            unsnapshottedEvents.clear();
+        }
+        flush();
         try {
+            journal.delete();
             Files.deleteIfExists(Paths.get(PROGRESS_FILE));
+            Files.deleteIfExists(Paths.get(LEGACY_PROGRESS_FILE));
         } catch (IOException e) {
             System.err.println("Failed to clear progress: " + e.getMessage());
         }
     }
 
+    @Override
+    public Progress load(String learnerId) {
+        return loadProgress();
+    }
+
+    @Override
+    public void record(String learnerId, Progress progress, ProgressJournal.Event event) {
+        record(progress, event);
+    }
+
+    @Override
+    public void save(String learnerId, Progress progress) {
+        saveProgressAsync(progress);
+    }
+
     /**
      * Checks if saved progress exists
      */
     public boolean hasProgress() {
-        return Files.exists(Paths.get(PROGRESS_FILE));
+        return Files.exists(Paths.get(PROGRESS_FILE)) || Files.exists(Paths.get(LEGACY_PROGRESS_FILE))
+            || Files.exists(Paths.get(JOURNAL_FILE));
     }
 }
@@ -0,0 +1,552 @@
+package com.socraticjava.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.socraticjava.model.Progress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress store for many learners, e.g. on a shared grading server
+ *
+ * Learners are spread over a fixed number of shard files by a hash of their ID.
+ * A shard holds one length-prefixed {@link ProgressCodec} record per learner
+ * and is indexed in memory on first use, so loading a learner is a hash lookup
+ * plus one read of just their record. The most recently used learners are kept in memory.
+ * Changes are written behind: they are snapshotted immediately and a
+ * background flusher rewrites each dirty shard (atomically) once per flush
+ * interval, copying untouched records without parsing them.
+ *
+ * The shard count is fixed when a directory is first used, since changing it
+ * would move learners to different shards.
+ */
+public final class ShardedProgressStore implements ProgressStore {
+
+    public static final int DEFAULT_SHARD_COUNT = 64;
+    public static final int DEFAULT_CACHE_CAPACITY = 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final String LAYOUT_FILE = "store.properties";
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final Path directory;
+    private final int shardCount;
+    private final int cacheCapacity;
+    private final Gson gson;          // Cohort import/export
+    private final Gson prettyGson;    // JSON export
+    private final ProgressAdapter progressAdapter = new ProgressAdapter();
+    private final Object[] shardLocks;
+    private final Map<String, byte[]>[] pendingWrites;        // Per shard: learner -> latest unwritten snapshot
+    private final Map<String, RecordLocation>[] indexes;      // Per shard, loaded lazily; guarded by the shard lock
+    private final Map<String, Progress> hotLearners;           // Guarded by itself
+    private final ScheduledExecutorService flusher;
+    private long cacheHits;
+    private long cacheMisses;
+    private boolean closed;
+
+    public ShardedProgressStore(Path directory) {
+        this(directory, DEFAULT_SHARD_COUNT, DEFAULT_CACHE_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param directory Directory holding the shard files
+     * @param shardCount Number of shard files; must match any existing store in the directory
+     * @param cacheCapacity Number of learners kept in memory
+     * @param flushIntervalMillis How often dirty shards are written to disk
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedProgressStore(Path directory, int shardCount, int cacheCapacity, long flushIntervalMillis) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (cacheCapacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + cacheCapacity);
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + flushIntervalMillis);
+        }
+        this.directory = directory;
+        this.shardCount = shardCount;
+        this.cacheCapacity = cacheCapacity;
+        this.gson = new GsonBuilder()
+            .registerTypeAdapter(Progress.class, progressAdapter)
+            .registerTypeAdapter(Progress.LessonProgress.class, new LessonProgressAdapter())
+            .create();
+        this.prettyGson = gson.newBuilder().setPrettyPrinting().create();
+
+        checkLayout();
+
+        this.shardLocks = new Object[shardCount];
+        this.pendingWrites = new Map[shardCount];
+        this.indexes = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shardLocks[i] = new Object();
+            pendingWrites[i] = new ConcurrentHashMap<>();
+        }
+        this.hotLearners = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Progress> eldest) {
+                // Safe to drop even if dirty: the pending snapshot is kept until written
+                return size() > ShardedProgressStore.this.cacheCapacity;
+            }
+        };
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the shard count on first use and refuses a directory laid out with another
+     */
+    private void checkLayout() {
+        Path layoutFile = directory.resolve(LAYOUT_FILE);
+        String layout = "shardCount=" + shardCount + "\n";
+        try {
+            if (Files.exists(layoutFile)) {
+                String existing = Files.readString(layoutFile, StandardCharsets.UTF_8);
+                if (!existing.equals(layout)) {
+                    throw new IllegalStateException("Progress store at " + directory
+                        + " was created with a different layout: " + existing.trim());
+                }
+            } else {
+                AtomicFiles.write(layoutFile, layout.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open progress store at " + directory, e);
+        }
+    }
+
+    @Override
+    public Progress load(String learnerId) {
+        checkLearnerId(learnerId);
+        synchronized (hotLearners) {
+            Progress cached = hotLearners.get(learnerId);
+            if (cached != null) {
+                cacheHits++;
+                return cached;
+            }
+            cacheMisses++;
+        }
+
+        Progress progress = readLearner(learnerId);
+
+        synchronized (hotLearners) {
+            // Another thread may have loaded the same learner meanwhile; keep a single instance
+            Progress raced = hotLearners.putIfAbsent(learnerId, progress);
+            return raced != null ? raced : progress;
+        }
+    }
+
+    @Override
+    public void record(String learnerId, Progress progress, ProgressJournal.Event event) {
+        checkLearnerId(learnerId);
+        synchronized (progress) {
+            event.applyTo(progress);
+        }
+        save(learnerId, progress);
+    }
+
+    @Override
+    public void save(String learnerId, Progress progress) {
+        checkLearnerId(learnerId);
+        byte[] snapshot;
+        synchronized (progress) {
+            snapshot = ProgressCodec.encode(progress);
+        }
+        int shard = shardOf(learnerId);
+        pendingWrites[shard].put(learnerId, snapshot);
+        synchronized (hotLearners) {
+            hotLearners.putIfAbsent(learnerId, progress);
+        }
+        synchronized (this) {
+            if (!closed) {
+                return;
+            }
+        }
+        // The flusher has stopped, so write through
+        flushShard(shard);
+    }
+
+    /**
+     * Forgets a learner, removing their record from disk
+     */
+    public void delete(String learnerId) {
+        checkLearnerId(learnerId);
+        synchronized (hotLearners) {
+            hotLearners.remove(learnerId);
+        }
+        int shard = shardOf(learnerId);
+        synchronized (shardLocks[shard]) {
+            pendingWrites[shard].remove(learnerId);
+            try {
+                if (index(shard).containsKey(learnerId)) {
+                    rewriteShard(shard, Map.of(), learnerId);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to delete progress of " + learnerId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (int shard = 0; shard < shardCount; shard++) {
+            flushShard(shard);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Keep the periodic flush alive; the snapshots stay pending for the next attempt
+            System.err.println("Failed to flush progress: " + e.getMessage());
+        }
+    }
+
+    private void flushShard(int shard) {
+        Map<String, byte[]> pending = pendingWrites[shard];
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (shardLocks[shard]) {
+            Map<String, byte[]> batch = new LinkedHashMap<>(pending);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                rewriteShard(shard, batch, null);
+            } catch (IOException e) {
+                System.err.println("Failed to save progress shard " + shard + ": " + e.getMessage());
+                return;
+            }
+            // Only drop snapshots that were written; newer ones stay for the next flush
+            for (Map.Entry<String, byte[]> written : batch.entrySet()) {
+                pending.remove(written.getKey(), written.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads one learner, preferring a snapshot that has not reached disk yet
+     */
+    private Progress readLearner(String learnerId) {
+        int shard = shardOf(learnerId);
+        synchronized (shardLocks[shard]) {
+            byte[] record = pendingWrites[shard].get(learnerId);
+            try {
+                if (record == null) {
+                    RecordLocation location = index(shard).get(learnerId);
+                    if (location == null) {
+                        return new Progress();
+                    }
+                    record = readRecord(shard, location);
+                }
+                return ProgressCodec.decode(record);
+            } catch (IOException e) {
+                System.err.println("Failed to load progress of " + learnerId + ": " + e.getMessage());
+                return new Progress();
+            }
+        }
+    }
+
+    /**
+     * Where a learner's record sits in a shard file
+     */
+    private static final class RecordLocation {
+        final long offset;
+        final int length;
+
+        RecordLocation(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Returns a shard's learner index, scanning the file on first use; caller holds the shard lock
+     */
+    private Map<String, RecordLocation> index(int shard) throws IOException {
+        if (indexes[shard] == null) {
+            Path file = shardFile(shard);
+            if (Files.exists(file)) {
+                indexes[shard] = scan(Files.readAllBytes(file));
+            } else {
+                indexes[shard] = new HashMap<>();
+            }
+        }
+        return indexes[shard];
+    }
+
+    /**
+     * Indexes shard content: records of id length, id, record length, record
+     */
+    private static Map<String, RecordLocation> scan(byte[] content) throws IOException {
+        Map<String, RecordLocation> index = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < Integer.BYTES) {
+                throw new IOException("Truncated progress shard");
+            }
+            int idLength = buffer.getInt();
+            if (idLength < 0 || idLength > buffer.remaining() - Integer.BYTES) {
+                throw new IOException("Damaged progress shard");
+            }
+            String learnerId = new String(content, buffer.position(), idLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + idLength);
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Damaged progress shard");
+            }
+            index.put(learnerId, new RecordLocation(buffer.position(), length));
+            buffer.position(buffer.position() + length);
+        }
+        return index;
+    }
+
+    private byte[] readRecord(int shard, RecordLocation location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        try (FileChannel channel = FileChannel.open(shardFile(shard), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new EOFException("Progress shard " + shard + " is shorter than its index");
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rewrites a shard with updated records, copying unchanged records as raw
+     * bytes without decoding them; caller holds the shard lock
+     */
+    private void rewriteShard(int shard, Map<String, byte[]> updates, String removedLearnerId) throws IOException {
+        Map<String, RecordLocation> oldIndex = index(shard);
+        Path file = shardFile(shard);
+        byte[] oldContent = oldIndex.isEmpty() ? new byte[0] : Files.readAllBytes(file);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream(oldContent.length + updates.size() * 256);
+        Map<String, RecordLocation> newIndex = new HashMap<>();
+        for (Map.Entry<String, RecordLocation> entry : oldIndex.entrySet()) {
+            String learnerId = entry.getKey();
+            if (updates.containsKey(learnerId) || learnerId.equals(removedLearnerId)) {
+                continue;
+            }
+            RecordLocation location = entry.getValue();
+            appendRecord(content, newIndex, learnerId,
+                oldContent, (int) location.offset, location.length);
+        }
+        for (Map.Entry<String, byte[]> update : updates.entrySet()) {
+            byte[] record = update.getValue();
+            appendRecord(content, newIndex, update.getKey(), record, 0, record.length);
+        }
+
+        AtomicFiles.write(file, content.toByteArray());
+        indexes[shard] = newIndex;
+    }
+
+    private static void appendRecord(ByteArrayOutputStream content, Map<String, RecordLocation> index,
+                                     String learnerId, byte[] record, int offset, int length) {
+        byte[] id = learnerId.getBytes(StandardCharsets.UTF_8);
+        writeInt(content, id.length);
+        content.write(id, 0, id.length);
+        writeInt(content, length);
+        index.put(learnerId, new RecordLocation(content.size(), length));
+        content.write(record, offset, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream content, int value) {
+        content.write(value >>> 24);
+        content.write(value >>> 16);
+        content.write(value >>> 8);
+        content.write(value);
+    }
+
+    /**
+     * Writes a learner's progress as pretty-printed JSON, for debugging
+     */
+    public void exportJson(String learnerId, Path target) throws IOException {
+        Progress progress = load(learnerId);
+        AtomicFiles.write(target, out -> {
+            JsonWriter writer = prettyGson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            synchronized (progress) {
+                progressAdapter.write(writer, progress);
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Streams every learner into one JSON object keyed by learner ID
+     *
+     * Shards are decoded one at a time, so memory use does not grow with the
+     * size of the cohort. Changes not yet flushed are included.
+     * @return Number of learners exported
+     */
+    public int exportCohort(Path target) throws IOException {
+        int[] exported = {0};
+        AtomicFiles.write(target, out -> {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.beginObject();
+            for (int shard = 0; shard < shardCount; shard++) {
+                for (Map.Entry<String, byte[]> record : shardRecords(shard).entrySet()) {
+                    writer.name(record.getKey());
+                    progressAdapter.write(writer, ProgressCodec.decode(record.getValue()));
+                    exported[0]++;
+                }
+            }
+            writer.endObject();
+            writer.flush();
+        });
+        return exported[0];
+    }
+
+    /**
+     * Streams learners from a JSON object keyed by learner ID, as written by
+     * {@link #exportCohort}, replacing any existing progress of those learners
+     *
+     * Callers still holding a replaced learner's old Progress should load it again.
+     * @return Number of learners imported
+     */
+    public int importCohort(Path source) throws IOException {
+        int imported = 0;
+        try (JsonReader reader = gson.newJsonReader(Files.newBufferedReader(source, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String learnerId = reader.nextName();
+                checkLearnerId(learnerId);
+                Progress progress = progressAdapter.read(reader);
+                if (progress == null) {
+                    continue;
+                }
+                synchronized (hotLearners) {
+                    hotLearners.remove(learnerId);
+                }
+                pendingWrites[shardOf(learnerId)].put(learnerId, ProgressCodec.encode(progress));
+                // Write in batches so a large cohort never sits in memory all at once
+                if (++imported % IMPORT_BATCH_SIZE == 0) {
+                    flush();
+                }
+            }
+            reader.endObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Malformed cohort file " + source + ": " + e.getMessage(), e);
+        }
+        flush();
+        return imported;
+    }
+
+    /**
+     * Every record of a shard, with unflushed snapshots taking precedence
+     */
+    private Map<String, byte[]> shardRecords(int shard) throws IOException {
+        synchronized (shardLocks[shard]) {
+            Map<String, RecordLocation> index = index(shard);
+            Map<String, byte[]> records = new LinkedHashMap<>();
+            if (!index.isEmpty()) {
+                byte[] content = Files.readAllBytes(shardFile(shard));
+                for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+                    RecordLocation location = entry.getValue();
+                    int offset = (int) location.offset;
+                    records.put(entry.getKey(), Arrays.copyOfRange(content, offset, offset + location.length));
+                }
+            }
+            records.putAll(pendingWrites[shard]);
+            return records;
+        }
+    }
+
+    private int shardOf(String learnerId) {
+        // String.hashCode is specified, so shard assignment is stable across JVMs
+        return Math.floorMod(learnerId.hashCode(), shardCount);
+    }
+
+    private Path shardFile(int shard) {
+        return directory.resolve(String.format("shard-%03d.bin", shard));
+    }
+
+    private static void checkLearnerId(String learnerId) {
+        if (learnerId == null || learnerId.isBlank()) {
+            throw new IllegalArgumentException("Learner ID must not be blank");
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    public int getCachedLearnerCount() {
+        synchronized (hotLearners) {
+            return hotLearners.size();
+        }
+    }
+
+    /**
+     * Number of learners with changes that have not been written yet
+     */
+    public int getPendingWriteCount() {
+        int count = 0;
+        for (Map<String, byte[]> pending : pendingWrites) {
+            count += pending.size();
+        }
+        return count;
+    }
+
+    public long getCacheHitCount() {
+        synchronized (hotLearners) {
+            return cacheHits;
+        }
+    }
+
+    public long getCacheMissCount() {
+        synchronized (hotLearners) {
+            return cacheMisses;
+        }
+    }
+}
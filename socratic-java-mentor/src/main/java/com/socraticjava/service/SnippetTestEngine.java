@@ -0,0 +1,291 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.TestCase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs snippet-style test cases, where each test is a few lines of Java that
+ * exercise the student's class and return a value to compare
+ *
+ * All snippets of a challenge are generated as methods of one harness class,
+ * which is compiled together with the submission in a single javac task, so a
+ * suite costs one compilation no matter how many snippets it has. Test cases
+ * that are not snippets run through the {@link TestRunner} as before.
+ */
+public class SnippetTestEngine {
+
+    public static final String HARNESS_CLASS_NAME = "SnippetHarness";
+
+    private static final String DISPATCH_SIGNATURE = "Object run(int)";
+
+    private static final Pattern IMPORT_DECLARATION =
+        Pattern.compile("^\\s*import\\s+(static\\s+)?[\\w.]+(\\.\\*)?\\s*;", Pattern.MULTILINE);
+    private static final Pattern RETURN_STATEMENT = Pattern.compile("\\breturn\\b");
+    private static final Pattern HARNESS_ERROR = Pattern.compile("^(\\w+)\\.java, Line (\\d+): (.*)$");
+
+    private final CodeCompiler compiler;
+    private final TestRunner runner;
+
+    public SnippetTestEngine(CodeCompiler compiler, TestRunner runner) {
+        this.compiler = compiler;
+        this.runner = runner;
+    }
+
+    /**
+     * Compiles a submission, plus a harness for its snippet tests if it has any
+     * @param className Name of the student's class
+     * @param sourceCode The student's source code
+     * @param testCases The challenge's test cases
+     * @return CompilationResult; harness errors are reported against the test that caused them
+     */
+    public CodeCompiler.CompilationResult compile(String className, String sourceCode, List<TestCase> testCases) {
+        List<TestCase> snippets = snippetTests(testCases);
+        if (snippets.isEmpty()) {
+            return compiler.compile(className, sourceCode);
+        }
+
+        String harnessName = harnessName(className);
+        Harness harness = generateHarness(harnessName, sourceCode, snippets);
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(className, sourceCode);
+        sources.put(harnessName, harness.source);
+        CodeCompiler.CompilationResult result = compiler.compileAll(sources);
+
+        if (result.isSuccess()) {
+            return result;
+        }
+        return new CodeCompiler.CompilationResult(false,
+            describeErrors(result.getErrors(), className, harnessName, harness, snippets), null);
+    }
+
+    /**
+     * Runs a challenge's tests against classes produced by {@link #compile}
+     * @param compiledClasses Compiled bytecode
+     * @param className Name of the student's class
+     * @param testCases The challenge's test cases
+     * @param methodSignature Method non-snippet tests call, or null for main
+     * @return TestSuiteResult with results in the same order as the test cases
+     */
+    public TestRunner.TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases, String methodSignature) {
+        return runTests(compiledClasses, className, testCases, methodSignature,
+            TestRunner.ProgressListener.NONE);
+    }
+
+    /**
+     * Runs a challenge's tests, reporting each result as it finishes. Snippet
+     * tests run first, so results may be reported out of the challenge's order;
+     * each is attached to the challenge's own test case.
+     */
+    public TestRunner.TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases, String methodSignature,
+                                               TestRunner.ProgressListener listener) {
+        List<TestCase> snippets = snippetTests(testCases);
+        if (snippets.isEmpty()) {
+            return runner.runTests(compiledClasses, className, testCases, methodSignature, listener);
+        }
+
+        List<TestCase> others = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            if (!testCase.isSnippet()) {
+                others.add(testCase);
+            }
+        }
+
+        // Each snippet becomes a call to the harness dispatch method with its index
+        List<TestCase> dispatchTests = new ArrayList<>(snippets.size());
+        for (int i = 0; i < snippets.size(); i++) {
+            TestCase snippet = snippets.get(i);
+            dispatchTests.add(new TestCase(snippet.getDescription(), new Object[] {i},
+                snippet.getExpectedOutput(), snippet.isVisible()));
+        }
+
+        String harnessName = qualify(harnessName(className), compiledClasses);
+        int total = testCases.size();
+        List<TestRunner.TestResult> snippetResults = runner.runTests(compiledClasses, harnessName,
+            dispatchTests, DISPATCH_SIGNATURE, (finished, count, result) -> listener.testFinished(finished, total,
+                new TestRunner.TestResult(snippets.get(finished - 1), result.getOutcome(),
+                    result.getActualOutput(), result.getErrorMessage())))
+            .getTestResults();
+        List<TestRunner.TestResult> otherResults = others.isEmpty()
+            ? List.of()
+            : runner.runTests(compiledClasses, className, others, methodSignature,
+                (finished, count, result) -> listener.testFinished(snippets.size() + finished, total, result))
+                .getTestResults();
+
+        // Reassemble in the challenge's order, attached to the original test cases
+        List<TestRunner.TestResult> results = new ArrayList<>(testCases.size());
+        int snippetIndex = 0;
+        int otherIndex = 0;
+        for (TestCase testCase : testCases) {
+            if (testCase.isSnippet()) {
+                TestRunner.TestResult result = snippetResults.get(snippetIndex++);
+                results.add(new TestRunner.TestResult(testCase, result.getOutcome(),
+                    result.getActualOutput(), result.getErrorMessage()));
+            } else {
+                results.add(otherResults.get(otherIndex++));
+            }
+        }
+        return new TestRunner.TestSuiteResult(results);
+    }
+
+    private static List<TestCase> snippetTests(List<TestCase> testCases) {
+        List<TestCase> snippets = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            if (testCase.isSnippet()) {
+                snippets.add(testCase);
+            }
+        }
+        return snippets;
+    }
+
+    /**
+     * Picks a harness name that cannot clash with the student's class
+     */
+    static String harnessName(String className) {
+        return HARNESS_CLASS_NAME.equals(className) ? HARNESS_CLASS_NAME + "_" : HARNESS_CLASS_NAME;
+    }
+
+    /**
+     * The harness lives in the student's package; find it from the compiled class names
+     */
+    private static String qualify(String harnessName, Map<String, byte[]> compiledClasses) {
+        for (String name : compiledClasses.keySet()) {
+            if (name.endsWith("." + harnessName)) {
+                return name;
+            }
+        }
+        return harnessName;
+    }
+
+    /**
+     * Generated harness source, with the first line of each snippet's method body
+     */
+    private static class Harness {
+        final String source;
+        final int[] snippetStartLines;
+
+        Harness(String source, int[] snippetStartLines) {
+            this.source = source;
+            this.snippetStartLines = snippetStartLines;
+        }
+    }
+
+    /**
+     * Generates a class with one static method per snippet and a dispatch
+     * method selecting a snippet by index
+     */
+    private static Harness generateHarness(String harnessName, String sourceCode, List<TestCase> snippets) {
+        StringBuilder source = new StringBuilder();
+        int line = 1;
+
+        // Same package and imports as the student, so snippets see the same names
+        Matcher packageMatcher = CodeCompiler.PACKAGE_DECLARATION.matcher(sourceCode);
+        if (packageMatcher.find()) {
+            source.append("package ").append(packageMatcher.group(1)).append(";\n");
+            line++;
+        }
+        source.append("import java.util.*;\n");
+        line++;
+        Matcher importMatcher = IMPORT_DECLARATION.matcher(sourceCode);
+        while (importMatcher.find()) {
+            source.append(importMatcher.group().trim()).append('\n');
+            line++;
+        }
+
+        source.append("public class ").append(harnessName).append(" {\n");
+        line++;
+        source.append("    public static Object run(int index) throws Throwable {\n");
+        source.append("        switch (index) {\n");
+        line += 2;
+        for (int i = 0; i < snippets.size(); i++) {
+            source.append("            case ").append(i).append(": return test").append(i).append("();\n");
+            line++;
+        }
+        source.append("            default: throw new IllegalArgumentException(\"No snippet \" + index);\n");
+        source.append("        }\n");
+        source.append("    }\n");
+        line += 3;
+
+        int[] startLines = new int[snippets.size()];
+        for (int i = 0; i < snippets.size(); i++) {
+            String code = snippets.get(i).getCode();
+            boolean returns = RETURN_STATEMENT.matcher(code).find();
+            source.append("    private static Object test").append(i).append("() throws Throwable {");
+            // A snippet without a return yields null; "if (true)" keeps the added return reachable
+            source.append(returns ? "\n" : " if (true) {\n");
+            line++;
+            startLines[i] = line;
+            source.append(code).append('\n');
+            line += lineCount(code);
+            if (!returns) {
+                source.append("    } return null;\n");
+                line++;
+            }
+            source.append("    }\n");
+            line++;
+        }
+        source.append("}\n");
+
+        return new Harness(source.toString(), startLines);
+    }
+
+    private static int lineCount(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rewrites compiler errors so harness lines point at the snippet test they
+     * came from, and errors in the student's file read as they would alone
+     */
+    private static String describeErrors(String errors, String className, String harnessName,
+                                         Harness harness, List<TestCase> snippets) {
+        StringBuilder described = new StringBuilder();
+        for (String errorLine : errors.split("\n")) {
+            Matcher matcher = HARNESS_ERROR.matcher(errorLine);
+            if (!matcher.matches()) {
+                described.append(errorLine).append('\n');
+                continue;
+            }
+            String file = matcher.group(1);
+            int line = Integer.parseInt(matcher.group(2));
+            String message = matcher.group(3);
+            if (file.equals(harnessName)) {
+                int snippet = snippetAt(harness.snippetStartLines, line);
+                if (snippet >= 0) {
+                    described.append("Test \"").append(snippets.get(snippet).getDescription()).append("\", line ")
+                        .append(line - harness.snippetStartLines[snippet] + 1).append(": ").append(message).append('\n');
+                } else {
+                    described.append("Test harness: ").append(message).append('\n');
+                }
+            } else if (file.equals(className)) {
+                described.append("Line ").append(line).append(": ").append(message).append('\n');
+            } else {
+                described.append(errorLine).append('\n');
+            }
+        }
+        return described.toString();
+    }
+
+    private static int snippetAt(int[] startLines, int line) {
+        for (int i = startLines.length - 1; i >= 0; i--) {
+            if (line >= startLines[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
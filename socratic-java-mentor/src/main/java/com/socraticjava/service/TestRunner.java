@@ -4,28 +4,153 @@ import com.socraticjava.model.TestCase;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
-import java.lang.reflect.Method;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for running test cases against compiled student code
+ *
+ * Each test runs on its own daemon thread under a wall-clock and a CPU-time
+ * limit, and the whole suite under a wall-clock limit, so a submission that
+ * never returns cannot stall the caller. A timed-out test thread is interrupted
+ * and abandoned; code that ignores interrupts keeps running in the background.
+ * Output is captured per test thread through {@link OutputCapture}, so a runner
+ * can be used from several threads at once.
+ *
+ * In {@link ExecutionMode#PARALLEL} mode the test cases of one run execute
+ * concurrently, each against its own copy of the student's classes so static
+ * state is not shared between them. Results keep the test case order.
+ * In {@link ExecutionMode#FORKED} mode runs are sent to a {@link WorkerJvmPool}
+ * so student code never executes in this JVM.
+ *
+ * Tests call main() and compare its output by default. Given a challenge's
+ * method signature, they instead call that static method with the test inputs
+ * converted to its parameter types and compare the returned value.
+ *
+ * A run stops when the calling thread is interrupted: the running test thread
+ * is interrupted too and the remaining tests are reported as not run. In FORKED
+ * mode the worker JVM is killed, which also stops code that ignores interrupts.
  */
 public class TestRunner {
 
+    /**
+     * How the test cases of a single run are scheduled
+     */
+    public enum ExecutionMode {
+        SEQUENTIAL,
+        PARALLEL,
+        FORKED      // Run in a pooled child JVM; limits are configured on the pool
+    }
+
+    public static final long DEFAULT_TEST_TIMEOUT_MILLIS = 5_000;
+    public static final long DEFAULT_TEST_CPU_LIMIT_MILLIS = 5_000;
+    public static final long DEFAULT_SUITE_TIMEOUT_MILLIS = 30_000;
+
+    // How often a running test's CPU time is sampled
+    private static final long CPU_POLL_MILLIS = 10;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final long testTimeoutMillis;
+    private final long testCpuLimitMillis;
+    private final long suiteTimeoutMillis;
+    private final ExecutionMode executionMode;
+    private final int parallelism;
+    private final WorkerJvmPool workerPool;
+    private ExecutorService dispatcher;
+
+    public TestRunner() {
+        this(DEFAULT_TEST_TIMEOUT_MILLIS, DEFAULT_TEST_CPU_LIMIT_MILLIS, DEFAULT_SUITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param testTimeoutMillis Wall-clock limit for a single test
+     * @param testCpuLimitMillis CPU-time limit for a single test (ignored if the
+     *        JVM cannot measure thread CPU time)
+     * @param suiteTimeoutMillis Wall-clock limit for all tests of one run
+     */
+    public TestRunner(long testTimeoutMillis, long testCpuLimitMillis, long suiteTimeoutMillis) {
+        this(testTimeoutMillis, testCpuLimitMillis, suiteTimeoutMillis, ExecutionMode.SEQUENTIAL, 1);
+    }
+
+    /**
+     * @param executionMode Whether a run's test cases execute one at a time or concurrently
+     * @param parallelism Maximum number of test cases running at once in PARALLEL mode
+     */
+    public TestRunner(long testTimeoutMillis, long testCpuLimitMillis, long suiteTimeoutMillis,
+                      ExecutionMode executionMode, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (executionMode == ExecutionMode.FORKED) {
+            throw new IllegalArgumentException("FORKED mode needs a worker pool; use TestRunner(WorkerJvmPool)");
+        }
+        this.testTimeoutMillis = testTimeoutMillis;
+        this.testCpuLimitMillis = testCpuLimitMillis;
+        this.suiteTimeoutMillis = suiteTimeoutMillis;
+        this.executionMode = executionMode;
+        this.parallelism = parallelism;
+        this.workerPool = null;
+    }
+
+    /**
+     * Creates a runner that executes every run in a child JVM from the pool
+     */
+    public TestRunner(WorkerJvmPool workerPool) {
+        this.testTimeoutMillis = DEFAULT_TEST_TIMEOUT_MILLIS;
+        this.testCpuLimitMillis = DEFAULT_TEST_CPU_LIMIT_MILLIS;
+        this.suiteTimeoutMillis = DEFAULT_SUITE_TIMEOUT_MILLIS;
+        this.executionMode = ExecutionMode.FORKED;
+        this.parallelism = 1;
+        this.workerPool = workerPool;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * How a test case ended
+     */
+    public enum Outcome {
+        PASSED,
+        FAILED,        // Ran to completion with the wrong output
+        ERROR,         // Threw an exception or could not be run
+        TIMED_OUT      // Exceeded a wall-clock or CPU-time limit
+    }
+
     /**
      * Result of running a single test case
      */
     public static class TestResult {
         private final TestCase testCase;
-        private final boolean passed;
+        private final Outcome outcome;
         private final Object actualOutput;
         private final String errorMessage;
 
         public TestResult(TestCase testCase, boolean passed, Object actualOutput, String errorMessage) {
+            this(testCase, passed ? Outcome.PASSED : Outcome.FAILED, actualOutput, errorMessage);
+        }
+
+        public TestResult(TestCase testCase, Outcome outcome, Object actualOutput, String errorMessage) {
             this.testCase = testCase;
-            this.passed = passed;
+            this.outcome = outcome;
             this.actualOutput = actualOutput;
             this.errorMessage = errorMessage;
         }
@@ -35,7 +160,15 @@ public class TestRunner {
         }
 
         public boolean isPassed() {
-            return passed;
+            return outcome == Outcome.PASSED;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isTimedOut() {
+            return outcome == Outcome.TIMED_OUT;
         }
 
         public Object getActualOutput() {
@@ -47,6 +180,20 @@ public class TestRunner {
         }
     }
 
+    /**
+     * Receives each test's result as soon as it is known
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (finished, total, result) -> { };
+
+        /**
+         * @param finished Number of tests finished so far, including this one
+         * @param total Number of tests in the run
+         */
+        void testFinished(int finished, int total, TestResult result);
+    }
+
     /**
      * Result of running all test cases
      */
@@ -76,6 +223,10 @@ public class TestRunner {
         public boolean allPassed() {
             return passedCount == totalCount;
         }
+
+        public int getTimedOutCount() {
+            return (int) testResults.stream().filter(TestResult::isTimedOut).count();
+        }
     }
 
     /**
@@ -87,65 +238,242 @@ public class TestRunner {
      */
     public TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
                                      List<TestCase> testCases) {
-        List<TestResult> results = new ArrayList<>();
+        return runTests(compiledClasses, className, testCases, null);
+    }
 
-        try {
-            // Create custom class loader for the compiled code
-            InMemoryClassLoader classLoader = new InMemoryClassLoader(compiledClasses);
-            Class<?> clazz = classLoader.loadClass(className);
+    /**
+     * Runs all test cases against the named method of the compiled code
+     * @param methodSignature Method to call, e.g. "int add(int a, int b)"; null,
+     *        blank or "main" runs main() and compares printed output
+     */
+    public TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                     List<TestCase> testCases, String methodSignature) {
+        return runTests(compiledClasses, className, testCases, methodSignature, ProgressListener.NONE);
+    }
 
-            // For simple programs, we'll run the main method and capture output
-            Method mainMethod = clazz.getMethod("main", String[].class);
+    /**
+     * Runs all test cases, reporting each result to the listener as it finishes
+     */
+    public TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                     List<TestCase> testCases, String methodSignature,
+                                     ProgressListener listener) {
+        if (executionMode == ExecutionMode.FORKED) {
+            return workerPool.runTests(compiledClasses, className, testCases, methodSignature, listener);
+        }
+
+        long suiteDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(suiteTimeoutMillis);
+        if (executionMode == ExecutionMode.PARALLEL && testCases.size() > 1) {
+            return runTestsInParallel(compiledClasses, className, testCases, methodSignature, suiteDeadline,
+                listener);
+        }
+
+        List<TestResult> results = new ArrayList<>();
+        try {
+            EntryPoint entryPoint = loadEntryPoint(compiledClasses, className, methodSignature);
 
             for (TestCase testCase : testCases) {
-                TestResult result = runSingleTest(mainMethod, testCase);
+                TestResult result = Thread.currentThread().isInterrupted()
+                    ? new TestResult(testCase, Outcome.ERROR, null, "Test run was interrupted")
+                    : runWithinSuite(entryPoint, testCase, suiteDeadline);
                 results.add(result);
+                listener.testFinished(results.size(), testCases.size(), result);
             }
 
         } catch (Exception e) {
             // If we can't load or execute the class, fail all tests
+            results.clear();
             for (TestCase testCase : testCases) {
-                results.add(new TestResult(testCase, false, null,
+                results.add(new TestResult(testCase, Outcome.ERROR, null,
                     "Failed to execute code: " + e.getMessage()));
             }
+            report(new TestSuiteResult(results), listener);
         }
 
         return new TestSuiteResult(results);
     }
 
+    private static TestSuiteResult report(TestSuiteResult suiteResult, ProgressListener listener) {
+        List<TestResult> results = suiteResult.getTestResults();
+        for (int i = 0; i < results.size(); i++) {
+            listener.testFinished(i + 1, results.size(), results.get(i));
+        }
+        return suiteResult;
+    }
+
     /**
-     * Runs a single test case
+     * Runs test cases concurrently on the dispatcher pool, keeping their order in the result
      */
-    private TestResult runSingleTest(Method mainMethod, TestCase testCase) {
-        try {
-            // Capture System.out
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            PrintStream originalOut = System.out;
-            System.setOut(new PrintStream(outputStream));
+    private TestSuiteResult runTestsInParallel(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases, String methodSignature,
+                                               long suiteDeadline, ProgressListener listener) {
+        List<Future<TestResult>> futures = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            // A fresh class loader per test keeps the student's static fields private to it
+            futures.add(dispatcher().submit(() -> runWithinSuite(
+                loadEntryPoint(compiledClasses, className, methodSignature), testCase, suiteDeadline)));
+        }
 
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
             try {
-                // Execute the main method with inputs
-                String[] args = convertInputsToStringArray(testCase.getInputs());
-                mainMethod.invoke(null, (Object) args);
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                results.add(new TestResult(testCases.get(i), Outcome.ERROR, null,
+                    "Failed to execute code: " + e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int j = i; j < futures.size(); j++) {
+                    futures.get(j).cancel(true);
+                }
+                for (int j = i; j < testCases.size(); j++) {
+                    results.add(new TestResult(testCases.get(j), Outcome.ERROR, null, "Test run was interrupted"));
+                    listener.testFinished(results.size(), testCases.size(), results.get(j));
+                }
+                break;
+            }
+            listener.testFinished(results.size(), testCases.size(), results.get(i));
+        }
+        return new TestSuiteResult(results);
+    }
 
-                // Get the output
-                String actualOutput = outputStream.toString().trim();
+    /**
+     * Pool of threads that start and supervise test threads in PARALLEL mode.
+     * Idle threads time out, so an unused runner holds no threads.
+     */
+    private synchronized ExecutorService dispatcher() {
+        if (dispatcher == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                parallelism, parallelism, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "test-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            dispatcher = pool;
+        }
+        return dispatcher;
+    }
 
-                // Compare with expected output
-                String expectedOutput = testCase.getExpectedOutput().toString();
-                boolean passed = actualOutput.equals(expectedOutput);
+    private EntryPoint loadEntryPoint(Map<String, byte[]> compiledClasses, String className,
+                                      String methodSignature) throws Exception {
+        // Create custom class loader for the compiled code
+        InMemoryClassLoader classLoader = new InMemoryClassLoader(compiledClasses);
+        Class<?> clazz = classLoader.loadClass(className);
+        return EntryPoint.resolve(clazz, methodSignature);
+    }
 
-                return new TestResult(testCase, passed, actualOutput,
-                    passed ? "" : "Expected: " + expectedOutput + "\nActual: " + actualOutput);
+    /**
+     * Runs a test unless the suite's time budget is already spent
+     */
+    private TestResult runWithinSuite(EntryPoint entryPoint, TestCase testCase, long suiteDeadline) {
+        if (System.nanoTime() - suiteDeadline >= 0) {
+            return new TestResult(testCase, Outcome.TIMED_OUT, null,
+                "Not run: suite time limit of " + suiteTimeoutMillis + " ms exceeded");
+        }
+        return runSingleTest(entryPoint, testCase, suiteDeadline);
+    }
+
+    /**
+     * Runs a single test case on its own thread, enforcing the time limits
+     */
+    private TestResult runSingleTest(EntryPoint entryPoint, TestCase testCase, long suiteDeadline) {
+        // Capture System.out for the test thread only, so concurrent tests stay separate
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(outputStream, true);
+        Thread testThread = null;
 
-            } finally {
-                // Restore System.out
-                System.setOut(originalOut);
+        try {
+            // Execute main (or the challenge's method) with inputs
+            String[] args = entryPoint.isMain() ? convertInputsToStringArray(testCase.getInputs()) : null;
+            FutureTask<Object> execution = new FutureTask<>(() -> {
+                OutputCapture.begin(capture);
+                try {
+                    if (entryPoint.isMain()) {
+                        entryPoint.invokeMain(args);
+                        return null;
+                    }
+                    return entryPoint.invokeMethod(testCase.getInputs());
+                } catch (Throwable t) {
+                    // Wrap so the student's exception is reported the same way for both paths
+                    throw new InvocationTargetException(t);
+                } finally {
+                    OutputCapture.end();
+                }
+            });
+            testThread = new Thread(execution, "test-runner");
+            testThread.setDaemon(true);
+            testThread.start();
+
+            String timeout = awaitCompletion(execution, testThread, suiteDeadline);
+            if (timeout != null) {
+                testThread.interrupt();
+                execution.cancel(true);
+                return new TestResult(testCase, Outcome.TIMED_OUT, outputStream.toString().trim(),
+                    timeout + " (possible infinite loop?)");
             }
 
-        } catch (Exception e) {
-            return new TestResult(testCase, false, null,
-                "Runtime error: " + e.getMessage());
+            Object returnValue = execution.get();
+
+            // Get the output (or the returned value, when checking a method's result)
+            String actualOutput = entryPoint.returnsValue()
+                ? EntryPoint.format(returnValue)
+                : outputStream.toString().trim();
+
+            // Compare with expected output
+            String expectedOutput = testCase.getExpectedOutput().toString();
+            boolean passed = actualOutput.equals(expectedOutput);
+
+            return new TestResult(testCase, passed, actualOutput,
+                passed ? "" : "Expected: " + expectedOutput + "\nActual: " + actualOutput);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException) {
+                cause = cause.getCause();
+            }
+            return new TestResult(testCase, Outcome.ERROR, null,
+                "Runtime error: " + cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (testThread != null) {
+                testThread.interrupt();
+            }
+            return new TestResult(testCase, Outcome.ERROR, null, "Test run was interrupted");
+        }
+    }
+
+    /**
+     * Waits for a test to finish
+     * @return null if it completed, otherwise a description of the limit it exceeded
+     */
+    private String awaitCompletion(FutureTask<Object> execution, Thread testThread, long suiteDeadline)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long testDeadline = start + TimeUnit.MILLISECONDS.toNanos(testTimeoutMillis);
+        long deadline = Math.min(testDeadline, suiteDeadline);
+        long cpuLimitNanos = TimeUnit.MILLISECONDS.toNanos(testCpuLimitMillis);
+        boolean measureCpu = THREAD_MX_BEAN.isThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return deadline == testDeadline
+                    ? "Timed out after " + testTimeoutMillis + " ms"
+                    : "Timed out: suite time limit of " + suiteTimeoutMillis + " ms exceeded";
+            }
+            try {
+                execution.get(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CPU_POLL_MILLIS)),
+                    TimeUnit.NANOSECONDS);
+                return null;
+            } catch (TimeoutException e) {
+                // Still running; check CPU usage below
+            } catch (ExecutionException e) {
+                return null; // Finished by throwing; reported by the caller
+            }
+            if (measureCpu && THREAD_MX_BEAN.getThreadCpuTime(testThread.threadId()) > cpuLimitNanos) {
+                return "Exceeded CPU time limit of " + testCpuLimitMillis + " ms";
+            }
         }
     }
 
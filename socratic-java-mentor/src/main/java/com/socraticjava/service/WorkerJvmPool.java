@@ -0,0 +1,434 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.TestCase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of pre-started child JVMs that run student code out of process
+ *
+ * Submissions graded in the application JVM can call System.exit, exhaust the
+ * heap or leave static state behind. A pool keeps a fixed number of
+ * {@link GradingWorker} processes running and warmed up; each run sends the
+ * compiled bytecode and test cases to an idle worker over its stdin/stdout pipes.
+ *
+ * A worker is replaced after a configured number of runs, when the heap still
+ * live after a garbage collection passes a threshold, after any test times out (its abandoned thread may still
+ * be spinning), or when it dies. Replacements start in the background so the
+ * pool stays warm. Interrupting the thread that is waiting for a run kills its
+ * worker, which is how a running submission is stopped.
+ */
+public class WorkerJvmPool implements AutoCloseable {
+
+    // Extra time the parent allows beyond the suite limit before killing a worker
+    private static final long WATCHDOG_GRACE_MILLIS = 5_000;
+    private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+    private static final long RESPAWN_DELAY_MILLIS = 1_000;
+    // How often a waiting caller is checked for interruption
+    private static final long CANCEL_POLL_MILLIS = 50;
+
+    private final int size;
+    private final int maxRunsPerWorker;
+    private final long heapRecycleBytes;
+    private final long testTimeoutMillis;
+    private final long testCpuLimitMillis;
+    private final long suiteTimeoutMillis;
+    private final List<String> jvmOptions;
+    private final String classPath;
+
+    private final BlockingQueue<WorkerProcess> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<WorkerProcess> allWorkers = new ArrayList<>();
+    private final ExecutorService spawner;
+    private final ScheduledExecutorService watchdog;
+    private volatile boolean closed;
+
+    private WorkerJvmPool(Builder builder) {
+        this.size = builder.size;
+        this.maxRunsPerWorker = builder.maxRunsPerWorker;
+        this.heapRecycleBytes = builder.heapRecycleBytes;
+        this.testTimeoutMillis = builder.testTimeoutMillis;
+        this.testCpuLimitMillis = builder.testCpuLimitMillis;
+        this.suiteTimeoutMillis = builder.suiteTimeoutMillis;
+        this.jvmOptions = List.copyOf(builder.jvmOptions);
+        this.classPath = builder.classPath != null ? builder.classPath : defaultClassPath();
+        this.spawner = Executors.newCachedThreadPool(daemonThreads("grading-worker-spawner"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("grading-worker-watchdog"));
+
+        for (int i = 0; i < size; i++) {
+            spawnInBackground(0);
+        }
+    }
+
+    /**
+     * A running child JVM and its protocol streams
+     */
+    private static class WorkerProcess {
+        private final Process process;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private int runs;
+
+        WorkerProcess(Process process) {
+            this.process = process;
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Runs the test cases in a worker JVM, waiting for an idle worker if necessary
+     */
+    public TestRunner.TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases) {
+        return runTests(compiledClasses, className, testCases, null);
+    }
+
+    /**
+     * Runs the test cases against a named method in a worker JVM
+     * @see TestRunner#runTests(Map, String, List, String)
+     */
+    public TestRunner.TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases, String methodSignature) {
+        return runTests(compiledClasses, className, testCases, methodSignature, TestRunner.ProgressListener.NONE);
+    }
+
+    /**
+     * Runs the test cases in a worker JVM, reporting each result to the listener
+     * as the worker finishes it. If the worker fails mid-run, the tests it did not
+     * finish are reported as errors.
+     */
+    public TestRunner.TestSuiteResult runTests(Map<String, byte[]> compiledClasses, String className,
+                                               List<TestCase> testCases, String methodSignature,
+                                               TestRunner.ProgressListener listener) {
+        List<TestRunner.TestResult> results = new ArrayList<>();
+        WorkerProcess worker;
+        try {
+            worker = acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failRemaining(testCases, results, "Interrupted while waiting for a grading worker", listener);
+        }
+        if (worker == null) {
+            return failRemaining(testCases, results, "Grading worker pool has been shut down", listener);
+        }
+
+        boolean reusable = false;
+        ScheduledFuture<?> kill = watchdog.schedule(worker::destroy,
+            suiteTimeoutMillis + WATCHDOG_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        // Pipe reads ignore interrupts, so watch for one and kill the worker instead
+        Thread caller = Thread.currentThread();
+        ScheduledFuture<?> cancelWatch = watchdog.scheduleWithFixedDelay(() -> {
+            if (caller.isInterrupted()) {
+                worker.destroy();
+            }
+        }, CANCEL_POLL_MILLIS, CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            WorkerProtocol.writeRequest(worker.out, compiledClasses, className, testCases, methodSignature);
+            WorkerProtocol.Response response = WorkerProtocol.readResponse(worker.in, testCases, results, listener);
+            worker.runs++;
+            reusable = worker.runs < maxRunsPerWorker
+                && response.liveHeapBytes < heapRecycleBytes
+                && response.suiteResult.getTimedOutCount() == 0;
+            return response.suiteResult;
+        } catch (IOException e) {
+            if (caller.isInterrupted()) {
+                return failRemaining(testCases, results, "Test run was interrupted", listener);
+            }
+            return failRemaining(testCases, results, hasExited(worker)
+                ? "Program terminated the grading JVM (did it call System.exit or run out of memory?)"
+                : "Grading worker failed: " + e.getMessage(), listener);
+        } finally {
+            kill.cancel(false);
+            cancelWatch.cancel(false);
+            release(worker, reusable);
+        }
+    }
+
+    /**
+     * Broken pipes are seen slightly before the process is reaped, so wait briefly
+     */
+    private static boolean hasExited(WorkerProcess worker) {
+        try {
+            return worker.process.waitFor(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !worker.process.isAlive();
+        }
+    }
+
+    private WorkerProcess acquire() throws InterruptedException {
+        while (!closed) {
+            WorkerProcess worker = idleWorkers.poll(100, TimeUnit.MILLISECONDS);
+            if (worker != null) {
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+                retire(worker); // Died while idle
+            }
+        }
+        return null;
+    }
+
+    private void release(WorkerProcess worker, boolean reusable) {
+        if (reusable && !closed && worker.process.isAlive()) {
+            idleWorkers.offer(worker);
+        } else {
+            retire(worker);
+        }
+    }
+
+    /**
+     * Stops a worker and starts its replacement
+     */
+    private void retire(WorkerProcess worker) {
+        worker.destroy();
+        synchronized (allWorkers) {
+            allWorkers.remove(worker);
+        }
+        if (!closed) {
+            spawnInBackground(0);
+        }
+    }
+
+    private void spawnInBackground(long delayMillis) {
+        spawner.execute(() -> {
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                if (closed) {
+                    return;
+                }
+                WorkerProcess worker = spawn();
+                synchronized (allWorkers) {
+                    allWorkers.add(worker);
+                }
+                if (closed) {
+                    worker.destroy();
+                } else {
+                    idleWorkers.offer(worker);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to start grading worker: " + e.getMessage());
+                if (!closed) {
+                    spawnInBackground(RESPAWN_DELAY_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    /**
+     * Starts a child JVM and waits until it has warmed up and reported ready
+     */
+    private WorkerProcess spawn() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(GradingWorker.class.getName());
+        command.add(Long.toString(testTimeoutMillis));
+        command.add(Long.toString(testCpuLimitMillis));
+        command.add(Long.toString(suiteTimeoutMillis));
+        command.add(Long.toString(heapRecycleBytes));
+
+        Process process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        WorkerProcess worker = new WorkerProcess(process);
+
+        ScheduledFuture<?> kill = watchdog.schedule(worker::destroy, STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            if (worker.in.readInt() != WorkerProtocol.READY) {
+                worker.destroy();
+                throw new IOException("Grading worker sent an unexpected handshake");
+            }
+        } catch (IOException e) {
+            worker.destroy();
+            throw e;
+        } finally {
+            kill.cancel(false);
+        }
+        return worker;
+    }
+
+    /**
+     * Completes a run whose worker could not finish it, failing the tests that have no result yet
+     */
+    private static TestRunner.TestSuiteResult failRemaining(List<TestCase> testCases,
+                                                            List<TestRunner.TestResult> results, String message,
+                                                            TestRunner.ProgressListener listener) {
+        for (int i = results.size(); i < testCases.size(); i++) {
+            TestRunner.TestResult result = new TestRunner.TestResult(testCases.get(i), TestRunner.Outcome.ERROR,
+                null, message);
+            results.add(result);
+            listener.testFinished(results.size(), testCases.size(), result);
+        }
+        return new TestRunner.TestSuiteResult(results);
+    }
+
+    /**
+     * Location of this application's classes, which is all a worker needs
+     */
+    private static String defaultClassPath() {
+        CodeSource codeSource = GradingWorker.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                return Paths.get(codeSource.getLocation().toURI()).toString();
+            } catch (URISyntaxException e) {
+                // Fall back to the launch class path
+            }
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Number of warmed-up workers waiting for a run
+     */
+    public int getIdleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    /**
+     * Shuts down every worker JVM
+     */
+    @Override
+    public void close() {
+        closed = true;
+        WorkerProcess worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            try {
+                worker.out.writeInt(WorkerProtocol.SHUTDOWN);
+                worker.out.flush();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+        synchronized (allWorkers) {
+            for (WorkerProcess running : allWorkers) {
+                try {
+                    if (!running.process.waitFor(1, TimeUnit.SECONDS)) {
+                        running.destroy();
+                    }
+                } catch (InterruptedException e) {
+                    running.destroy();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            allWorkers.clear();
+        }
+        spawner.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    // Builder pattern for the many tuning knobs
+    public static class Builder {
+        private int size = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int maxRunsPerWorker = 200;
+        private long heapRecycleBytes = 192L * 1024 * 1024;
+        private long testTimeoutMillis = TestRunner.DEFAULT_TEST_TIMEOUT_MILLIS;
+        private long testCpuLimitMillis = TestRunner.DEFAULT_TEST_CPU_LIMIT_MILLIS;
+        private long suiteTimeoutMillis = TestRunner.DEFAULT_SUITE_TIMEOUT_MILLIS;
+        private List<String> jvmOptions = new ArrayList<>(List.of("-Xmx256m", "-XX:+UseSerialGC", "-Xshare:auto"));
+        private String classPath;
+
+        public Builder size(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Pool size must be positive: " + size);
+            }
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * Replace a worker after this many runs
+         */
+        public Builder maxRunsPerWorker(int maxRunsPerWorker) {
+            this.maxRunsPerWorker = maxRunsPerWorker;
+            return this;
+        }
+
+        /**
+         * Replace a worker once the heap it retains after a run exceeds this many bytes.
+         * Garbage does not count: a worker over the threshold collects before reporting.
+         */
+        public Builder heapRecycleBytes(long heapRecycleBytes) {
+            this.heapRecycleBytes = heapRecycleBytes;
+            return this;
+        }
+
+        public Builder testTimeoutMillis(long testTimeoutMillis) {
+            this.testTimeoutMillis = testTimeoutMillis;
+            return this;
+        }
+
+        public Builder testCpuLimitMillis(long testCpuLimitMillis) {
+            this.testCpuLimitMillis = testCpuLimitMillis;
+            return this;
+        }
+
+        public Builder suiteTimeoutMillis(long suiteTimeoutMillis) {
+            this.suiteTimeoutMillis = suiteTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Replaces the default worker JVM options (heap size, GC)
+         */
+        public Builder jvmOptions(List<String> jvmOptions) {
+            this.jvmOptions = new ArrayList<>(jvmOptions);
+            return this;
+        }
+
+        /**
+         * Class path for worker JVMs; defaults to the location of this application's classes
+         */
+        public Builder classPath(String classPath) {
+            this.classPath = classPath;
+            return this;
+        }
+
+        /**
+         * Creates the pool and starts its workers in the background
+         */
+        public WorkerJvmPool build() {
+            return new WorkerJvmPool(this);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.TestCase;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format between {@link WorkerJvmPool} and {@link GradingWorker}
+ *
+ * Every message is a stream of length-prefixed fields over the child's
+ * stdin/stdout pipes. Test inputs and expected output travel as strings; the
+ * worker converts inputs to a method's parameter types the same way it parses
+ * string inputs in-process. The response to a run is one TEST_RESULT frame per
+ * test, sent as each test finishes, followed by a SUITE_END frame.
+ */
+final class WorkerProtocol {
+
+    static final int READY = 0x5EED0001;
+    static final int RUN = 1;
+    static final int SHUTDOWN = 2;
+    static final int TEST_RESULT = 3;
+    static final int SUITE_END = 4;
+
+    private WorkerProtocol() {
+    }
+
+    /**
+     * A decoded run request
+     */
+    static class Request {
+        final Map<String, byte[]> compiledClasses;
+        final String className;
+        final List<TestCase> testCases;
+        final String methodSignature;
+
+        Request(Map<String, byte[]> compiledClasses, String className, List<TestCase> testCases,
+                String methodSignature) {
+            this.compiledClasses = compiledClasses;
+            this.className = className;
+            this.testCases = testCases;
+            this.methodSignature = methodSignature;
+        }
+    }
+
+    /**
+     * A decoded run response
+     */
+    static class Response {
+        final TestRunner.TestSuiteResult suiteResult;
+        final long liveHeapBytes;
+
+        Response(TestRunner.TestSuiteResult suiteResult, long liveHeapBytes) {
+            this.suiteResult = suiteResult;
+            this.liveHeapBytes = liveHeapBytes;
+        }
+    }
+
+    static void writeRequest(DataOutputStream out, Map<String, byte[]> compiledClasses, String className,
+                             List<TestCase> testCases, String methodSignature) throws IOException {
+        out.writeInt(RUN);
+        out.writeInt(compiledClasses.size());
+        for (Map.Entry<String, byte[]> entry : compiledClasses.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+        writeString(out, className);
+        writeNullableString(out, methodSignature);
+        out.writeInt(testCases.size());
+        for (TestCase testCase : testCases) {
+            writeString(out, testCase.getDescription());
+            Object[] inputs = testCase.getInputs();
+            int inputCount = inputs == null ? 0 : inputs.length;
+            out.writeInt(inputCount);
+            for (int i = 0; i < inputCount; i++) {
+                writeString(out, inputs[i].toString());
+            }
+            writeString(out, testCase.getExpectedOutput().toString());
+            out.writeBoolean(testCase.isVisible());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the body of a RUN request (the opcode has already been consumed)
+     */
+    static Request readRequest(DataInputStream in) throws IOException {
+        int classCount = in.readInt();
+        Map<String, byte[]> compiledClasses = new HashMap<>();
+        for (int i = 0; i < classCount; i++) {
+            String name = readString(in);
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            compiledClasses.put(name, bytes);
+        }
+        String className = readString(in);
+        String methodSignature = readNullableString(in);
+        int testCount = in.readInt();
+        List<TestCase> testCases = new ArrayList<>(testCount);
+        for (int i = 0; i < testCount; i++) {
+            String description = readString(in);
+            Object[] inputs = new Object[in.readInt()];
+            for (int j = 0; j < inputs.length; j++) {
+                inputs[j] = readString(in);
+            }
+            String expectedOutput = readString(in);
+            boolean visible = in.readBoolean();
+            testCases.add(new TestCase(description, inputs, expectedOutput, visible));
+        }
+        return new Request(compiledClasses, className, testCases, methodSignature);
+    }
+
+    /**
+     * Sends the result of one finished test; results go out in test case order
+     */
+    static void writeTestResult(DataOutputStream out, TestRunner.TestResult result) throws IOException {
+        out.writeInt(TEST_RESULT);
+        writeString(out, result.getOutcome().name());
+        writeNullableString(out, result.getActualOutput() == null ? null : result.getActualOutput().toString());
+        writeNullableString(out, result.getErrorMessage());
+        out.flush();
+    }
+
+    /**
+     * Ends a run's response, after every test result has been sent
+     */
+    static void writeSuiteEnd(DataOutputStream out, long liveHeapBytes) throws IOException {
+        out.writeInt(SUITE_END);
+        out.writeLong(liveHeapBytes);
+        out.flush();
+    }
+
+    /**
+     * Reads a response, attaching results to the caller's original test cases by
+     * position. Each result is added to results and reported to the listener as it
+     * arrives, so a caller still has the finished ones if the worker dies mid-run.
+     */
+    static Response readResponse(DataInputStream in, List<TestCase> testCases, List<TestRunner.TestResult> results,
+                                 TestRunner.ProgressListener listener) throws IOException {
+        while (true) {
+            int frame = in.readInt();
+            if (frame == SUITE_END) {
+                long liveHeapBytes = in.readLong();
+                if (results.size() != testCases.size()) {
+                    throw new IOException("Worker returned " + results.size() + " results for "
+                        + testCases.size() + " tests");
+                }
+                return new Response(new TestRunner.TestSuiteResult(results), liveHeapBytes);
+            }
+            if (frame != TEST_RESULT) {
+                throw new IOException("Unexpected frame from worker: " + frame);
+            }
+            TestRunner.Outcome outcome = TestRunner.Outcome.valueOf(readString(in));
+            String actualOutput = readNullableString(in);
+            String errorMessage = readNullableString(in);
+            if (results.size() == testCases.size()) {
+                throw new IOException("Worker returned more results than the " + testCases.size() + " tests");
+            }
+            TestRunner.TestResult result = new TestRunner.TestResult(testCases.get(results.size()), outcome,
+                actualOutput, errorMessage);
+            results.add(result);
+            listener.testFinished(results.size(), testCases.size(), result);
+        }
+    }
+
+    // writeUTF caps strings at 64 KB, too small for chatty program output
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+}
@@ -0,0 +1,153 @@
+package com.socraticjava.ui;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.scene.layout.Region;
+import org.fxmisc.flowless.VirtualizedScrollPane;
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.LineNumberFactory;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.TwoDimensional.Bias;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Java code editor with line numbers and syntax highlighting
+ *
+ * Highlighting runs on a background thread once typing pauses. Each pass
+ * re-lexes only the lines changed since the last applied pass (see
+ * {@link JavaHighlighter}) and applies their styles in one batch. A pass that
+ * finishes after further edits is dropped; the pass those edits trigger
+ * covers its lines as well.
+ */
+public class CodeEditor {
+
+    // Typing pause after which highlighting is brought up to date
+    private static final Duration HIGHLIGHT_DELAY = Duration.ofMillis(40);
+
+    /**
+     * Daemon thread shared by all editors for highlighting passes
+     */
+    private static final class HighlighterHolder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "syntax-highlight");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final CodeArea codeArea = new CodeArea();
+    private final VirtualizedScrollPane<CodeArea> view = new VirtualizedScrollPane<>(codeArea);
+
+    // Lines as of the last applied pass, which the next pass is diffed against
+    private List<JavaHighlighter.Line> highlightedLines = Collections.emptyList();
+    // Counts edits, so a pass can tell whether the text moved on while it ran
+    private long editCount;
+    // Edit count when setText last highlighted, whose typing-pause pass would repeat it
+    private long textSetAt = -1;
+    // Paragraphs edited since the last applied pass: the first one touched, and how
+    // many at the end were not. Edits elsewhere can only move the range outwards.
+    private int editedFrom = Integer.MAX_VALUE;
+    private int untouchedTail = Integer.MAX_VALUE;
+
+    public CodeEditor() {
+        codeArea.getStyleClass().add("code-editor");
+        codeArea.getStylesheets().add(CodeEditor.class.getResource("code-editor.css").toExternalForm());
+        codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
+
+        codeArea.multiPlainChanges().subscribe(changes -> {
+            editCount++;
+            markEdited(changes);
+        });
+        codeArea.multiPlainChanges()
+            .successionEnds(HIGHLIGHT_DELAY)
+            .subscribe(changes -> {
+                if (editCount != textSetAt) {
+                    highlight();
+                }
+            });
+    }
+
+    /**
+     * Replaces the whole text, clearing undo history, and highlights it
+     */
+    public void setText(String text) {
+        codeArea.replaceText(text);
+        codeArea.getUndoManager().forgetHistory();
+        codeArea.moveTo(0);
+        codeArea.requestFollowCaret();
+
+        // replaceText drops all styles, so every line needs highlighting again even
+        // if the text is unchanged; counting this as an edit discards passes in flight
+        editCount++;
+        textSetAt = editCount;
+        highlightedLines = Collections.emptyList();
+        highlight();
+    }
+
+    public String getText() {
+        return codeArea.getText();
+    }
+
+    public BooleanProperty editableProperty() {
+        return codeArea.editableProperty();
+    }
+
+    public Region getView() {
+        return view;
+    }
+
+    private void markEdited(List<PlainTextChange> changes) {
+        if (changes.size() != 1) {
+            // Offsets of all but the last change refer to text as it was part-way through
+            editedFrom = 0;
+            untouchedTail = 0;
+            return;
+        }
+        PlainTextChange change = changes.get(0);
+        int first = codeArea.offsetToPosition(change.getPosition(), Bias.Forward).getMajor();
+        int last = codeArea.offsetToPosition(change.getInsertionEnd(), Bias.Forward).getMajor();
+        editedFrom = Math.min(editedFrom, first);
+        untouchedTail = Math.min(untouchedTail, codeArea.getParagraphs().size() - 1 - last);
+    }
+
+    private void highlight() {
+        long snapshotEdit = editCount;
+        int from = editedFrom;
+        int tail = untouchedTail;
+        int paragraphCount = codeArea.getParagraphs().size();
+        List<String> text = new ArrayList<>(paragraphCount);
+        for (int i = 0; i < paragraphCount; i++) {
+            text.add(codeArea.getParagraph(i).getText());
+        }
+        List<JavaHighlighter.Line> baseline = highlightedLines;
+
+        CompletableFuture.supplyAsync(() -> JavaHighlighter.highlight(baseline, text, from, tail),
+                HighlighterHolder.EXECUTOR)
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    System.err.println("Syntax highlighting failed: " + error.getMessage());
+                    return;
+                }
+                Platform.runLater(() -> apply(snapshotEdit, result));
+            });
+    }
+
+    private void apply(long snapshotEdit, JavaHighlighter.Result result) {
+        if (snapshotEdit != editCount) {
+            return;
+        }
+        highlightedLines = result.getLines();
+        editedFrom = Integer.MAX_VALUE;
+        untouchedTail = Integer.MAX_VALUE;
+        if (result.getSpans() != null) {
+            codeArea.setStyleSpans(codeArea.getAbsolutePosition(result.getFirstParagraph(), 0), result.getSpans());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.socraticjava.ui;
+
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental Java syntax highlighter for {@link CodeEditor}
+ *
+ * Works line by line: each line is lexed from the state the previous line
+ * ended in (inside a block comment or text block, or neither). Given the lines
+ * of the last pass, only lines whose text changed are lexed again, plus any
+ * following lines whose starting state changed as a result. Holds no state of
+ * its own, so passes can run on any thread.
+ */
+final class JavaHighlighter {
+
+    private static final int NORMAL = 0;
+    private static final int BLOCK_COMMENT = 1;
+    private static final int TEXT_BLOCK = 2;
+
+    private static final Collection<String> PLAIN = Collections.emptyList();
+    private static final Collection<String> KEYWORD = Collections.singletonList("keyword");
+    private static final Collection<String> STRING = Collections.singletonList("string");
+    private static final Collection<String> COMMENT = Collections.singletonList("comment");
+    private static final Collection<String> NUMBER = Collections.singletonList("number");
+    private static final Collection<String> ANNOTATION = Collections.singletonList("annotation");
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+        "new", "package", "private", "protected", "public", "record", "return", "short", "static",
+        "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try",
+        "var", "void", "volatile", "while", "yield", "true", "false", "null"
+    );
+
+    /**
+     * A highlighted line and the lexer states it starts and ends in
+     */
+    static final class Line {
+        private final String text;
+        private final int entryState;
+        private final int exitState;
+
+        private Line(String text, int entryState, int exitState) {
+            this.text = text;
+            this.entryState = entryState;
+            this.exitState = exitState;
+        }
+    }
+
+    /**
+     * Outcome of a pass: the new lines, and styles for the range of them that was re-lexed
+     */
+    static final class Result {
+        private final List<Line> lines;
+        private final int firstParagraph;
+        private final StyleSpans<Collection<String>> spans;
+
+        private Result(List<Line> lines, int firstParagraph, StyleSpans<Collection<String>> spans) {
+            this.lines = lines;
+            this.firstParagraph = firstParagraph;
+            this.spans = spans;
+        }
+
+        List<Line> getLines() {
+            return lines;
+        }
+
+        /**
+         * First re-lexed line; the spans start at its beginning
+         */
+        int getFirstParagraph() {
+            return firstParagraph;
+        }
+
+        /**
+         * Styles of the re-lexed lines including the line breaks between them,
+         * or null if no line needed highlighting again
+         */
+        StyleSpans<Collection<String>> getSpans() {
+            return spans;
+        }
+    }
+
+    private JavaHighlighter() {
+    }
+
+    /**
+     * Highlights the given text, re-lexing only what differs from the previous pass
+     *
+     * Comparing text alone cannot tell which of two equal neighbouring lines an
+     * edit inserted, and the inserted one carries whatever styles the insertion
+     * gave it. The caller therefore bounds the unchanged lines by where it saw edits.
+     * @param editedFrom First line touched by an edit since the previous pass
+     * @param untouchedTail Number of lines at the end that no edit has touched since the previous pass
+     */
+    static Result highlight(List<Line> previous, List<String> text, int editedFrom, int untouchedTail) {
+        int oldSize = previous.size();
+        int newSize = text.size();
+
+        // Unchanged lines at the start and end
+        int prefix = 0;
+        while (prefix < editedFrom && prefix < oldSize && prefix < newSize
+                && previous.get(prefix).text.equals(text.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < untouchedTail && suffix < oldSize - prefix && suffix < newSize - prefix
+                && previous.get(oldSize - 1 - suffix).text.equals(text.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Line> lines = new ArrayList<>(newSize);
+        lines.addAll(previous.subList(0, prefix));
+
+        int state = prefix == 0 ? NORMAL : previous.get(prefix - 1).exitState;
+        int shift = oldSize - newSize;
+        int changedEnd = newSize - suffix;
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        int index = prefix;
+        while (index < newSize) {
+            // Past the edit, stop once a line starts in the state it was lexed with
+            if (index >= changedEnd && previous.get(index + shift).entryState == state) {
+                break;
+            }
+            if (index > prefix) {
+                spans.add(PLAIN, 1);
+            }
+            String lineText = text.get(index);
+            int exitState = lexLine(lineText, state, spans);
+            lines.add(new Line(lineText, state, exitState));
+            state = exitState;
+            index++;
+        }
+        int relexed = index - prefix;
+        lines.addAll(previous.subList(index + shift, oldSize));
+
+        return new Result(lines, prefix, relexed == 0 ? null : spans.create());
+    }
+
+    /**
+     * Adds the styles of one line and returns the state the line ends in
+     */
+    private static int lexLine(String line, int state, StyleSpansBuilder<Collection<String>> spans) {
+        Emitter out = new Emitter(spans);
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (state == BLOCK_COMMENT) {
+                int end = line.indexOf("*/", i);
+                if (end < 0) {
+                    out.emit(COMMENT, i, length);
+                    return out.finish(length, BLOCK_COMMENT);
+                }
+                out.emit(COMMENT, i, end + 2);
+                i = end + 2;
+                state = NORMAL;
+                continue;
+            }
+            if (state == TEXT_BLOCK) {
+                int end = textBlockEnd(line, i);
+                if (end < 0) {
+                    out.emit(STRING, i, length);
+                    return out.finish(length, TEXT_BLOCK);
+                }
+                out.emit(STRING, i, end);
+                i = end;
+                state = NORMAL;
+                continue;
+            }
+
+            char c = line.charAt(i);
+            char next = i + 1 < length ? line.charAt(i + 1) : '\0';
+            if (c == '/' && next == '/') {
+                out.emit(COMMENT, i, length);
+                i = length;
+            } else if (c == '/' && next == '*') {
+                int end = line.indexOf("*/", i + 2);
+                if (end < 0) {
+                    out.emit(COMMENT, i, length);
+                    return out.finish(length, BLOCK_COMMENT);
+                }
+                out.emit(COMMENT, i, end + 2);
+                i = end + 2;
+            } else if (line.startsWith("\"\"\"", i)) {
+                int end = textBlockEnd(line, i + 3);
+                if (end < 0) {
+                    out.emit(STRING, i, length);
+                    return out.finish(length, TEXT_BLOCK);
+                }
+                out.emit(STRING, i, end);
+                i = end;
+            } else if (c == '"' || c == '\'') {
+                int end = quotedEnd(line, i + 1, c);
+                out.emit(STRING, i, end);
+                i = end;
+            } else if (c == '@' && Character.isJavaIdentifierStart(next)) {
+                int end = identifierEnd(line, i + 1);
+                out.emit(ANNOTATION, i, end);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = identifierEnd(line, i);
+                if (KEYWORDS.contains(line.substring(i, end))) {
+                    out.emit(KEYWORD, i, end);
+                }
+                i = end;
+            } else if (Character.isDigit(c)) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(line.charAt(end))
+                        || line.charAt(end) == '_' || line.charAt(end) == '.')) {
+                    end++;
+                }
+                out.emit(NUMBER, i, end);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return out.finish(length, state);
+    }
+
+    /**
+     * End of the text block closing delimiter at or after from, or -1 if the line has none
+     */
+    private static int textBlockEnd(String line, int from) {
+        int i = from;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (line.startsWith("\"\"\"", i)) {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * End of a string or char literal; unterminated literals run to the end of the line
+     */
+    private static int quotedEnd(String line, int from, char quote) {
+        int i = from;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return line.length();
+    }
+
+    private static int identifierEnd(String line, int from) {
+        int i = from;
+        while (i < line.length() && Character.isJavaIdentifierPart(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Adds styled tokens to the builder, filling the gaps between them with plain text
+     */
+    private static final class Emitter {
+        private final StyleSpansBuilder<Collection<String>> spans;
+        private int position;
+
+        Emitter(StyleSpansBuilder<Collection<String>> spans) {
+            this.spans = spans;
+        }
+
+        void emit(Collection<String> style, int from, int to) {
+            if (from > position) {
+                spans.add(PLAIN, from - position);
+            }
+            spans.add(style, to - from);
+            position = to;
+        }
+
+        int finish(int length, int state) {
+            // Every line contributes a span, even an empty one, so the builder is never empty
+            spans.add(PLAIN, length - position);
+            return state;
+        }
+    }
+}
@@ -2,29 +2,53 @@ package com.socraticjava.ui;
 
 import com.socraticjava.model.*;
 import com.socraticjava.service.CodeCompiler;
+import com.socraticjava.service.GradingJob;
+import com.socraticjava.service.SnippetTestEngine;
 import com.socraticjava.service.TestRunner;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
  * Panel for displaying lesson content and challenges
+ *
+ * The lesson is laid out as a virtualized list of blocks (content sections,
+ * headings and challenges): only the blocks on screen get nodes, and cells are
+ * recycled while scrolling. What a learner types or selects, and what a test
+ * run reports, is kept per challenge in a {@link ChallengeState} rather than in
+ * the cells, so it survives a challenge scrolling out of view.
  */
 public class LessonPanel {
 
+    // Horizontal room taken by cell padding and the list's scroll bar
+    private static final double CELL_INSET = 40;
+
     private final Lesson lesson;
     private final Progress progress;
     private final CodeCompiler codeCompiler;
     private final TestRunner testRunner;
+    private final SnippetTestEngine snippetTestEngine;
     private final Consumer<String> onChallengeCompleted;
     private final Runnable onNextLesson;
 
+    private final List<ChallengeState> challengeStates = new ArrayList<>();
+
     private VBox mainView;
+    private ListView<Block> contentList;
     private int currentChallengeIndex = 0;
 
     public LessonPanel(Lesson lesson, Progress progress, CodeCompiler codeCompiler,
@@ -34,6 +58,7 @@ public class LessonPanel {
         this.progress = progress;
         this.codeCompiler = codeCompiler;
         this.testRunner = testRunner;
+        this.snippetTestEngine = new SnippetTestEngine(codeCompiler, testRunner);
         this.onChallengeCompleted = onChallengeCompleted;
         this.onNextLesson = onNextLesson;
 
@@ -49,241 +74,491 @@ public class LessonPanel {
         titleLabel.setFont(Font.font("System", FontWeight.BOLD, 28));
         titleLabel.setWrapText(true);
 
-        // Lesson content sections
-        VBox contentBox = new VBox(15);
+        // Lesson content sections, then the challenges
+        List<Block> blocks = new ArrayList<>();
         for (Lesson.ContentSection section : lesson.getContentSections()) {
-            contentBox.getChildren().add(createContentSection(section));
+            blocks.add(Block.section(section));
+        }
+        if (lesson.getChallenges().isEmpty()) {
+            blocks.add(Block.text(Block.Kind.NOTE, "No challenges for this lesson."));
+        } else {
+            blocks.add(Block.text(Block.Kind.HEADING, "🎯 Challenges"));
+            for (int i = 0; i < lesson.getChallenges().size(); i++) {
+                Challenge challenge = lesson.getChallenges().get(i);
+                ChallengeState state = new ChallengeState(challenge, i,
+                    progress.isChallengeCompleted(lesson.getId(), challenge.getId()));
+                challengeStates.add(state);
+                blocks.add(Block.challenge(state));
+            }
         }
 
-        // Challenges section
-        VBox challengesBox = createChallengesSection();
-
-        // Scroll pane for content
-        ScrollPane scrollPane = new ScrollPane();
-        VBox scrollContent = new VBox(20, titleLabel, new Separator(), contentBox, challengesBox);
-        scrollContent.setPadding(new Insets(10));
-        scrollPane.setContent(scrollContent);
-        scrollPane.setFitToWidth(true);
+        contentList = new ListView<>(FXCollections.observableArrayList(blocks));
+        contentList.setCellFactory(list -> new BlockCell());
+        contentList.setFocusTraversable(false);
 
-        mainView.getChildren().add(scrollPane);
-        VBox.setVgrow(scrollPane, Priority.ALWAYS);
+        mainView.getChildren().addAll(titleLabel, new Separator(), contentList);
+        VBox.setVgrow(contentList, Priority.ALWAYS);
     }
 
-    private VBox createContentSection(Lesson.ContentSection section) {
-        VBox sectionBox = new VBox(10);
-        sectionBox.setPadding(new Insets(10));
-
-        // Section heading
-        Label headingLabel = new Label(section.getHeading());
-        headingLabel.setFont(Font.font("System", FontWeight.BOLD, 18));
-
-        // Section content
-        TextArea contentArea = new TextArea(section.getContent());
-        contentArea.setWrapText(true);
-        contentArea.setEditable(false);
-        contentArea.setPrefRowCount(10);
-
-        // Style based on content type
-        String style = switch (section.getType()) {
-            case ANALOGY -> "-fx-background-color: #e8f5e9; -fx-border-color: #4caf50; -fx-border-width: 2px;";
-            case KEY_POINT -> "-fx-background-color: #fff9c4; -fx-border-color: #fbc02d; -fx-border-width: 2px;";
-            case EXAMPLE -> "-fx-background-color: #e3f2fd; -fx-border-color: #2196f3; -fx-border-width: 2px;";
-            case WARNING -> "-fx-background-color: #ffebee; -fx-border-color: #f44336; -fx-border-width: 2px;";
-            default -> "-fx-background-color: #f5f5f5; -fx-border-color: #9e9e9e; -fx-border-width: 1px;";
-        };
+    /**
+     * One row of the lesson list
+     */
+    private static final class Block {
+        enum Kind { SECTION, HEADING, NOTE, CHALLENGE }
+
+        final Kind kind;
+        final Lesson.ContentSection section;
+        final String text;
+        final ChallengeState challenge;
+
+        private Block(Kind kind, Lesson.ContentSection section, String text, ChallengeState challenge) {
+            this.kind = kind;
+            this.section = section;
+            this.text = text;
+            this.challenge = challenge;
+        }
+
+        static Block section(Lesson.ContentSection section) {
+            return new Block(Kind.SECTION, section, null, null);
+        }
 
-        sectionBox.setStyle(style);
-        sectionBox.getChildren().addAll(headingLabel, contentArea);
+        static Block text(Kind kind, String text) {
+            return new Block(kind, null, text, null);
+        }
 
-        return sectionBox;
+        static Block challenge(ChallengeState challenge) {
+            return new Block(Kind.CHALLENGE, null, null, challenge);
+        }
     }
 
-    private VBox createChallengesSection() {
-        VBox challengesBox = new VBox(15);
-        challengesBox.setPadding(new Insets(20, 0, 0, 0));
+    /**
+     * A challenge's answer, output and progress, independent of any cell
+     */
+    private static final class ChallengeState {
+        final Challenge challenge;
+        final int index;
+        final boolean completedBefore;
+
+        // Multiple choice
+        final StringProperty selectedOption = new SimpleStringProperty();
+        final StringProperty resultText = new SimpleStringProperty("");
+        final StringProperty resultStyle = new SimpleStringProperty("");
+
+        // Coding
+        final StringProperty code;
+        final StringProperty output = new SimpleStringProperty("");
+        final BooleanProperty running = new SimpleBooleanProperty();
+        final BooleanProperty passed = new SimpleBooleanProperty();
+        GradingJob job;
+
+        final BooleanProperty submitted = new SimpleBooleanProperty();
+
+        ChallengeState(Challenge challenge, int index, boolean completedBefore) {
+            this.challenge = challenge;
+            this.index = index;
+            this.completedBefore = completedBefore;
+            this.code = new SimpleStringProperty(challenge.getStarterCode());
+        }
 
-        if (lesson.getChallenges().isEmpty()) {
-            Label noChallenges = new Label("No challenges for this lesson.");
-            challengesBox.getChildren().add(noChallenges);
-            return challengesBox;
+        void append(String text) {
+            output.set(output.get() + text);
         }
+    }
 
-        Label challengesTitle = new Label("🎯 Challenges");
-        challengesTitle.setFont(Font.font("System", FontWeight.BOLD, 22));
+    /**
+     * Recycled list cell; keeps one view of each kind and rebinds it to whichever block it shows
+     */
+    private final class BlockCell extends ListCell<Block> {
+        private SectionView sectionView;
+        private Label textLabel;
+        private ChallengeView plainView;
+        private MultipleChoiceView multipleChoiceView;
+        private CodingView codingView;
+        private ChallengeView shownChallenge;
+
+        BlockCell() {
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+            setPrefWidth(0);
+            setStyle("-fx-background-color: transparent; -fx-padding: 8 10 8 10;");
+        }
 
-        challengesBox.getChildren().add(challengesTitle);
+        @Override
+        protected void updateItem(Block block, boolean empty) {
+            super.updateItem(block, empty);
+            if (shownChallenge != null) {
+                shownChallenge.release();
+                shownChallenge = null;
+            }
+            if (empty || block == null) {
+                setGraphic(null);
+                return;
+            }
 
-        // Display all challenges
-        for (int i = 0; i < lesson.getChallenges().size(); i++) {
-            Challenge challenge = lesson.getChallenges().get(i);
-            VBox challengeBox = createChallengeBox(challenge, i);
-            challengesBox.getChildren().add(challengeBox);
+            switch (block.kind) {
+                case SECTION -> {
+                    if (sectionView == null) {
+                        sectionView = new SectionView();
+                    }
+                    setGraphic(sectionView.show(block.section));
+                }
+                case HEADING, NOTE -> {
+                    if (textLabel == null) {
+                        textLabel = new Label();
+                        textLabel.setWrapText(true);
+                        fitToList(textLabel);
+                    }
+                    textLabel.setText(block.text);
+                    textLabel.setFont(block.kind == Block.Kind.HEADING
+                        ? Font.font("System", FontWeight.BOLD, 22) : Font.getDefault());
+                    setGraphic(textLabel);
+                }
+                case CHALLENGE -> {
+                    shownChallenge = challengeView(block.challenge.challenge.getType());
+                    setGraphic(shownChallenge.show(block.challenge));
+                }
+            }
         }
 
-        return challengesBox;
+        private ChallengeView challengeView(ChallengeType type) {
+            if (type == ChallengeType.MULTIPLE_CHOICE) {
+                if (multipleChoiceView == null) {
+                    multipleChoiceView = new MultipleChoiceView();
+                }
+                return multipleChoiceView;
+            }
+            if (type == ChallengeType.FREE_CODING || type == ChallengeType.CODE_COMPLETION) {
+                if (codingView == null) {
+                    codingView = new CodingView();
+                }
+                return codingView;
+            }
+            if (plainView == null) {
+                plainView = new ChallengeView();
+            }
+            return plainView;
+        }
     }
 
-    private VBox createChallengeBox(Challenge challenge, int index) {
-        VBox challengeBox = new VBox(10);
-        challengeBox.setPadding(new Insets(15));
-        challengeBox.setStyle("-fx-border-color: #3f51b5; -fx-border-width: 2px; -fx-background-color: #fafafa;");
+    private final class SectionView {
+        private final VBox sectionBox = new VBox(10);
+        private final Label headingLabel = new Label();
+        private final TextArea contentArea = new TextArea();
 
-        // Challenge header
-        HBox header = new HBox(10);
-        header.setAlignment(Pos.CENTER_LEFT);
+        SectionView() {
+            sectionBox.setPadding(new Insets(10));
 
-        Label challengeTitle = new Label("Challenge " + (index + 1) + ": " + challenge.getTitle());
-        challengeTitle.setFont(Font.font("System", FontWeight.BOLD, 16));
+            // Section heading
+            headingLabel.setFont(Font.font("System", FontWeight.BOLD, 18));
 
-        // Completion status
-        boolean isCompleted = progress.isChallengeCompleted(lesson.getId(), challenge.getId());
-        if (isCompleted) {
-            Label completedLabel = new Label("✓ Completed");
-            completedLabel.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
-            header.getChildren().addAll(challengeTitle, completedLabel);
-        } else {
-            header.getChildren().add(challengeTitle);
+            // Section content
+            contentArea.setWrapText(true);
+            contentArea.setEditable(false);
+            contentArea.setPrefRowCount(10);
+
+            sectionBox.getChildren().addAll(headingLabel, contentArea);
+            fitToList(sectionBox);
         }
 
-        challengeBox.getChildren().add(header);
+        Node show(Lesson.ContentSection section) {
+            headingLabel.setText(section.getHeading());
+            contentArea.setText(section.getContent());
+            contentArea.setScrollTop(0);
+
+            // Style based on content type
+            String style = switch (section.getType()) {
+                case ANALOGY -> "-fx-background-color: #e8f5e9; -fx-border-color: #4caf50; -fx-border-width: 2px;";
+                case KEY_POINT -> "-fx-background-color: #fff9c4; -fx-border-color: #fbc02d; -fx-border-width: 2px;";
+                case EXAMPLE -> "-fx-background-color: #e3f2fd; -fx-border-color: #2196f3; -fx-border-width: 2px;";
+                case WARNING -> "-fx-background-color: #ffebee; -fx-border-color: #f44336; -fx-border-width: 2px;";
+                default -> "-fx-background-color: #f5f5f5; -fx-border-color: #9e9e9e; -fx-border-width: 1px;";
+            };
+            sectionBox.setStyle(style);
+            return sectionBox;
+        }
+    }
 
-        // Challenge description
-        TextArea descriptionArea = new TextArea(challenge.getDescription());
-        descriptionArea.setWrapText(true);
-        descriptionArea.setEditable(false);
-        descriptionArea.setPrefRowCount(3);
-        challengeBox.getChildren().add(descriptionArea);
+    /**
+     * Header and description of a challenge; subclasses add the type-specific UI
+     */
+    private class ChallengeView {
+        final VBox challengeBox = new VBox(10);
+        private final Label challengeTitle = new Label();
+        private final Label completedLabel = new Label("✓ Completed");
+        private final TextArea descriptionArea = new TextArea();
+        ChallengeState state;
+
+        ChallengeView() {
+            challengeBox.setPadding(new Insets(15));
+            challengeBox.setStyle("-fx-border-color: #3f51b5; -fx-border-width: 2px; -fx-background-color: #fafafa;");
+
+            // Challenge header
+            challengeTitle.setFont(Font.font("System", FontWeight.BOLD, 16));
+            completedLabel.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
+            completedLabel.managedProperty().bind(completedLabel.visibleProperty());
+            HBox header = new HBox(10, challengeTitle, completedLabel);
+            header.setAlignment(Pos.CENTER_LEFT);
 
-        // Type-specific UI
-        if (challenge.getType() == ChallengeType.MULTIPLE_CHOICE) {
-            VBox mcBox = createMultipleChoiceUI(challenge);
-            challengeBox.getChildren().add(mcBox);
-        } else if (challenge.getType() == ChallengeType.FREE_CODING ||
-                   challenge.getType() == ChallengeType.CODE_COMPLETION) {
-            VBox codeBox = createCodingChallengeUI(challenge);
-            challengeBox.getChildren().add(codeBox);
+            // Challenge description
+            descriptionArea.setWrapText(true);
+            descriptionArea.setEditable(false);
+            descriptionArea.setPrefRowCount(3);
+
+            challengeBox.getChildren().addAll(header, descriptionArea);
+            fitToList(challengeBox);
+        }
+
+        Node show(ChallengeState state) {
+            this.state = state;
+            challengeTitle.setText("Challenge " + (state.index + 1) + ": " + state.challenge.getTitle());
+            completedLabel.setVisible(state.completedBefore);
+            descriptionArea.setText(state.challenge.getDescription());
+            descriptionArea.setScrollTop(0);
+            return challengeBox;
         }
 
-        return challengeBox;
+        /**
+         * Unbinds the view before the cell moves on to another block
+         */
+        void release() {
+            state = null;
+        }
     }
 
-    private VBox createMultipleChoiceUI(Challenge challenge) {
-        VBox mcBox = new VBox(10);
+    private final class MultipleChoiceView extends ChallengeView {
+        private final VBox optionsBox = new VBox(10);
+        private final ToggleGroup group = new ToggleGroup();
+        private final Button submitButton = new Button("Submit Answer");
+        private final Label resultLabel = new Label();
+        private boolean showingOptions;
+
+        MultipleChoiceView() {
+            group.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
+                if (state != null && !showingOptions && newToggle != null) {
+                    state.selectedOption.set(((RadioButton) newToggle).getText());
+                }
+            });
+
+            submitButton.setOnAction(e -> {
+                ChallengeState current = state;
+                String selected = current.selectedOption.get();
+                if (selected == null) {
+                    current.resultText.set("Please select an answer!");
+                    current.resultStyle.set("-fx-text-fill: red;");
+                    return;
+                }
 
-        ToggleGroup group = new ToggleGroup();
+                String answer = selected.substring(0, 1); // Get A, B, C, or D
+                if (answer.equals(current.challenge.getCorrectAnswer())) {
+                    current.resultText.set("✓ Correct! Well done!");
+                    current.resultStyle.set("-fx-text-fill: green; -fx-font-weight: bold;");
+                    onChallengeCompleted.accept(current.challenge.getId());
+                    current.submitted.set(true);
+                } else {
+                    current.resultText.set("✗ Not quite. Try again!");
+                    current.resultStyle.set("-fx-text-fill: red;");
+                }
+            });
 
-        for (String option : challenge.getMultipleChoiceOptions()) {
-            RadioButton radioButton = new RadioButton(option);
-            radioButton.setToggleGroup(group);
-            radioButton.setWrapText(true);
-            mcBox.getChildren().add(radioButton);
+            VBox mcBox = new VBox(10, optionsBox, submitButton, resultLabel);
+            challengeBox.getChildren().add(mcBox);
         }
 
-        Button submitButton = new Button("Submit Answer");
-        Label resultLabel = new Label();
+        @Override
+        Node show(ChallengeState state) {
+            Node node = super.show(state);
 
-        submitButton.setOnAction(e -> {
-            RadioButton selected = (RadioButton) group.getSelectedToggle();
-            if (selected == null) {
-                resultLabel.setText("Please select an answer!");
-                resultLabel.setStyle("-fx-text-fill: red;");
-                return;
+            showingOptions = true;
+            for (Toggle toggle : new ArrayList<>(group.getToggles())) {
+                toggle.setToggleGroup(null);
             }
-
-            String answer = selected.getText().substring(0, 1); // Get A, B, C, or D
-            if (answer.equals(challenge.getCorrectAnswer())) {
-                resultLabel.setText("✓ Correct! Well done!");
-                resultLabel.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
-                onChallengeCompleted.accept(challenge.getId());
-                submitButton.setDisable(true);
-            } else {
-                resultLabel.setText("✗ Not quite. Try again!");
-                resultLabel.setStyle("-fx-text-fill: red;");
+            optionsBox.getChildren().clear();
+            for (String option : state.challenge.getMultipleChoiceOptions()) {
+                RadioButton radioButton = new RadioButton(option);
+                radioButton.setToggleGroup(group);
+                radioButton.setWrapText(true);
+                radioButton.setSelected(option.equals(state.selectedOption.get()));
+                optionsBox.getChildren().add(radioButton);
             }
-        });
+            showingOptions = false;
 
-        mcBox.getChildren().addAll(submitButton, resultLabel);
-        return mcBox;
+            submitButton.disableProperty().bind(state.submitted);
+            resultLabel.textProperty().bind(state.resultText);
+            resultLabel.styleProperty().bind(state.resultStyle);
+            return node;
+        }
+
+        @Override
+        void release() {
+            submitButton.disableProperty().unbind();
+            resultLabel.textProperty().unbind();
+            resultLabel.styleProperty().unbind();
+            super.release();
+        }
     }
 
-    private VBox createCodingChallengeUI(Challenge challenge) {
-        VBox codeBox = new VBox(10);
+    private final class CodingView extends ChallengeView {
+        private final CodeEditor codeEditor = new CodeEditor();
+        private final TextArea outputConsole = new TextArea();
+        private final Button runTestsButton = new Button("Run Tests");
+        private final Button stopButton = new Button("Stop");
+        private final Button submitButton = new Button("Submit Solution");
+
+        CodingView() {
+            Label instructionLabel = new Label("Write your code below:");
+            instructionLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+
+            // Code editor with Java syntax highlighting
+            codeEditor.getView().setPrefHeight(320);
+
+            // Output console, kept scrolled to the latest line
+            outputConsole.setEditable(false);
+            outputConsole.setPrefRowCount(8);
+            outputConsole.setPromptText("Test results will appear here...");
+            outputConsole.textProperty().addListener((obs, oldText, newText) ->
+                outputConsole.setScrollTop(Double.MAX_VALUE));
+
+            // Buttons
+            runTestsButton.setOnAction(e -> {
+                state.code.set(codeEditor.getText());
+                runTests(state);
+            });
+            stopButton.setOnAction(e -> stopTests(state));
+            submitButton.setOnAction(e -> {
+                state.code.set(codeEditor.getText());
+                state.append("\n✓ Challenge completed!\n");
+                onChallengeCompleted.accept(state.challenge.getId());
+                state.submitted.set(true);
+            });
+            HBox buttonBox = new HBox(10, runTestsButton, stopButton, submitButton);
+
+            VBox codeBox = new VBox(10, instructionLabel, codeEditor.getView(), buttonBox,
+                                    new Label("Output:"), outputConsole);
+            challengeBox.getChildren().add(codeBox);
+        }
 
-        Label instructionLabel = new Label("Write your code below:");
-        instructionLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+        @Override
+        Node show(ChallengeState state) {
+            Node node = super.show(state);
+            codeEditor.setText(state.code.get());
+            codeEditor.editableProperty().bind(state.submitted.not());
+            outputConsole.textProperty().bind(state.output);
+            runTestsButton.disableProperty().bind(state.running.or(state.submitted));
+            stopButton.disableProperty().bind(state.running.not());
+            submitButton.disableProperty().bind(state.passed.not().or(state.submitted));
+            return node;
+        }
 
-        // Code editor (simple TextArea for now)
-        TextArea codeEditor = new TextArea(challenge.getStarterCode());
-        codeEditor.setFont(Font.font("Monospaced", 14));
-        codeEditor.setPrefRowCount(15);
-        codeEditor.setStyle("-fx-control-inner-background: #2b2b2b; -fx-text-fill: #f8f8f2;");
+        @Override
+        void release() {
+            state.code.set(codeEditor.getText());
+            codeEditor.editableProperty().unbind();
+            outputConsole.textProperty().unbind();
+            runTestsButton.disableProperty().unbind();
+            stopButton.disableProperty().unbind();
+            submitButton.disableProperty().unbind();
+            super.release();
+        }
+    }
 
-        // Output console
-        TextArea outputConsole = new TextArea();
-        outputConsole.setEditable(false);
-        outputConsole.setPrefRowCount(8);
-        outputConsole.setPromptText("Test results will appear here...");
+    private void fitToList(Region region) {
+        region.prefWidthProperty().bind(contentList.widthProperty().subtract(CELL_INSET));
+    }
 
-        // Buttons
-        HBox buttonBox = new HBox(10);
-        Button runTestsButton = new Button("Run Tests");
-        Button submitButton = new Button("Submit Solution");
-        submitButton.setDisable(true);
+    private void runTests(ChallengeState state) {
+        Challenge challenge = state.challenge;
+        String code = state.code.get();
+        String className = extractClassName(code);
 
-        runTestsButton.setOnAction(e -> {
-            String code = codeEditor.getText();
-            String className = extractClassName(code);
+        state.output.set("");
+        state.running.set(true);
 
-            // Compile
-            outputConsole.setText("Compiling...\n");
-            CodeCompiler.CompilationResult compResult = codeCompiler.compile(className, code);
+        // Compile and test off the FX thread; progress comes back through runLater
+        state.job = GradingJob.start(snippetTestEngine, className, code,
+            challenge.getTestCases(), challenge.getMethodSignature(), new GradingJob.Listener() {
+                @Override
+                public void onStatus(String status) {
+                    Platform.runLater(() -> state.append(status + "\n"));
+                }
 
-            if (!compResult.isSuccess()) {
-                outputConsole.appendText("Compilation failed:\n" + compResult.getErrors());
-                return;
-            }
+                @Override
+                public void onTestFinished(int finished, int total, TestRunner.TestResult result) {
+                    Platform.runLater(() -> state.append(
+                        "  test " + finished + "/" + total + ": " + statusOf(result) + "\n"));
+                }
 
-            outputConsole.appendText("Compilation successful!\n\nRunning tests...\n");
-
-            // Run tests
-            TestRunner.TestSuiteResult testResult = testRunner.runTests(
-                compResult.getCompiledClasses(),
-                className,
-                challenge.getTestCases()
-            );
-
-            // Display results
-            outputConsole.appendText("\nTest Results:\n");
-            outputConsole.appendText("================\n");
-            for (TestRunner.TestResult result : testResult.getTestResults()) {
-                String status = result.isPassed() ? "✓ PASS" : "✗ FAIL";
-                outputConsole.appendText(status + ": " + result.getTestCase().getDescription() + "\n");
-                if (!result.isPassed()) {
-                    outputConsole.appendText("  " + result.getErrorMessage() + "\n");
+                @Override
+                public void onFinished(GradingJob.Result result) {
+                    Platform.runLater(() -> {
+                        state.job = null;
+                        state.running.set(false);
+                        showResult(result, state);
+                    });
                 }
-            }
-            outputConsole.appendText("\nTotal: " + testResult.getPassedCount() + "/" +
-                                    testResult.getTotalCount() + " passed\n");
+            });
+    }
+
+    private void stopTests(ChallengeState state) {
+        if (state.job != null) {
+            state.append("Stopping...\n");
+            state.job.cancel();
+        }
+    }
+
+    private void showResult(GradingJob.Result result, ChallengeState state) {
+        if (result.isCancelled()) {
+            state.append("\n⏹ Stopped.\n");
+            return;
+        }
+        if (result.getErrorMessage() != null) {
+            state.append("\n" + result.getErrorMessage() + "\n");
+            return;
+        }
+
+        CodeCompiler.CompilationResult compResult = result.getCompilationResult();
+        if (!compResult.isSuccess()) {
+            state.append("Compilation failed:\n" + compResult.getErrors());
+            return;
+        }
 
-            if (testResult.allPassed()) {
-                outputConsole.appendText("\n🎉 All tests passed! Click 'Submit Solution' to complete this challenge.\n");
-                submitButton.setDisable(false);
+        // Display results
+        TestRunner.TestSuiteResult testResult = result.getTestResult();
+        StringBuilder report = new StringBuilder();
+        report.append("\nTest Results:\n");
+        report.append("================\n");
+        for (TestRunner.TestResult testCaseResult : testResult.getTestResults()) {
+            report.append(statusOf(testCaseResult)).append(": ")
+                .append(testCaseResult.getTestCase().getDescription()).append("\n");
+            if (!testCaseResult.isPassed()) {
+                report.append("  ").append(testCaseResult.getErrorMessage()).append("\n");
             }
-        });
+        }
+        report.append("\nTotal: ").append(testResult.getPassedCount()).append("/")
+            .append(testResult.getTotalCount()).append(" passed\n");
 
-        submitButton.setOnAction(e -> {
-            outputConsole.appendText("\n✓ Challenge completed!\n");
-            onChallengeCompleted.accept(challenge.getId());
-            runTestsButton.setDisable(true);
-            submitButton.setDisable(true);
-            codeEditor.setEditable(false);
-        });
+        if (testResult.allPassed()) {
+            report.append("\n🎉 All tests passed! Click 'Submit Solution' to complete this challenge.\n");
+            state.passed.set(true);
+        }
+        state.append(report.toString());
+    }
 
-        buttonBox.getChildren().addAll(runTestsButton, submitButton);
+    private static String statusOf(TestRunner.TestResult result) {
+        return switch (result.getOutcome()) {
+            case PASSED -> "✓ PASS";
+            case TIMED_OUT -> "⏱ TIMEOUT";
+            default -> "✗ FAIL";
+        };
+    }
 
-        codeBox.getChildren().addAll(instructionLabel, codeEditor, buttonBox,
-                                     new Label("Output:"), outputConsole);
-        return codeBox;
+    /**
+     * Stops any test runs still in progress; call when the panel is discarded
+     */
+    public void dispose() {
+        for (ChallengeState state : challengeStates) {
+            if (state.job != null) {
+                state.job.cancel();
+            }
+        }
     }
 
     private String extractClassName(String code) {
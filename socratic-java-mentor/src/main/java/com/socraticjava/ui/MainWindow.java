@@ -3,8 +3,15 @@ package com.socraticjava.ui;
 import com.socraticjava.model.*;
 import com.socraticjava.service.CodeCompiler;
 import com.socraticjava.service.LessonService;
+import com.socraticjava.service.ProgressJournal;
 import com.socraticjava.service.ProgressTracker;
 import com.socraticjava.service.TestRunner;
+import com.socraticjava.service.WorkerJvmPool;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.scene.Scene;
@@ -12,26 +19,53 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Main application window
  */
 public class MainWindow {
 
+    private static final int PANEL_CACHE_SIZE = 8;
+    // One worker for the current run and a warm spare for the run after a Stop
+    private static final int GRADING_WORKERS = 2;
+
     private final Stage stage;
     private final LessonService lessonService;
     private final ProgressTracker progressTracker;
     private final Progress progress;
     private final CodeCompiler codeCompiler;
+    private final WorkerJvmPool workerPool;
     private final TestRunner testRunner;
 
-    private TreeView<String> lessonTree;
+    private TreeView<LessonNode> lessonTree;
     private BorderPane contentArea;
     private Label statusLabel;
 
     private Lesson currentLesson;
     private String currentEpochId;
+    private LessonPanel currentPanel;
+
+    // Lesson tree values by lesson ID, for the epochs expanded so far
+    private final Map<String, LessonNode> lessonNodes = new HashMap<>();
+
+    // Recently shown lesson panels by lesson ID, least recently used first
+    private final Map<String, LessonPanel> panelCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LessonPanel> eldest) {
+            if (size() <= PANEL_CACHE_SIZE) {
+                return false;
+            }
+            if (eldest.getValue() != currentPanel) {
+                eldest.getValue().dispose();
+            }
+            return true;
+        }
+    };
 
     public MainWindow(Stage stage, LessonService lessonService, ProgressTracker progressTracker,
                       Progress progress, Lesson startingLesson) {
@@ -40,7 +74,9 @@ public class MainWindow {
         this.progressTracker = progressTracker;
         this.progress = progress;
         this.codeCompiler = new CodeCompiler();
-        this.testRunner = new TestRunner();
+        // Student code runs in child JVMs, so Stop can kill code that ignores interrupts
+        this.workerPool = new WorkerJvmPool.Builder().size(GRADING_WORKERS).build();
+        this.testRunner = new TestRunner(workerPool);
         this.currentLesson = startingLesson;
 
         // Determine current epoch from the lesson
@@ -104,38 +140,25 @@ public class MainWindow {
         return top;
     }
 
-    private TreeView<String> createLessonTree() {
-        TreeItem<String> root = new TreeItem<>("Course");
+    private TreeView<LessonNode> createLessonTree() {
+        TreeItem<LessonNode> root = new TreeItem<>();
         root.setExpanded(true);
 
+        // Epoch items list their lessons the first time they are expanded
         List<Epoch> epochs = lessonService.getAllEpochs();
         for (Epoch epoch : epochs) {
-            TreeItem<String> epochItem = new TreeItem<>(epoch.getTitle());
-            epochItem.setExpanded(false);
-
-            for (Lesson lesson : epoch.getLessons()) {
-                String displayText = lesson.getTitle();
-                if (progress.isLessonCompleted(lesson.getId())) {
-                    displayText = "✓ " + displayText;
-                }
-                TreeItem<String> lessonItem = new TreeItem<>(displayText);
-                lessonItem.setValue(lesson.getId()); // Store lesson ID as value
-                epochItem.getChildren().add(lessonItem);
-            }
-
-            root.getChildren().add(epochItem);
+            root.getChildren().add(new EpochTreeItem(epoch));
         }
 
-        TreeView<String> tree = new TreeView<>(root);
+        TreeView<LessonNode> tree = new TreeView<>(root);
         tree.setShowRoot(false);
+        tree.setCellFactory(view -> new LessonTreeCell());
 
         // Handle lesson selection
         tree.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null && newVal.isLeaf()) {
-                String lessonId = newVal.getValue();
-                // Extract epoch ID from lesson ID (format: epoch-X-lesson-Y)
-                String epochId = extractEpochId(lessonId);
-                Lesson lesson = lessonService.getLesson(epochId, lessonId);
+            if (newVal != null && newVal.getValue() != null && newVal.getValue().lesson != null) {
+                LessonNode node = newVal.getValue();
+                Lesson lesson = lessonService.getLesson(node.epochId, node.lesson.getId());
                 if (lesson != null) {
                     loadLesson(lesson);
                 }
@@ -145,6 +168,82 @@ public class MainWindow {
         return tree;
     }
 
+    /**
+     * Value of a lesson tree item: an epoch, or one of its lessons with a completion badge
+     */
+    private static final class LessonNode {
+        final String epochId;
+        final String epochTitle;
+        final LessonSummary lesson;
+        final BooleanProperty completed = new SimpleBooleanProperty();
+
+        LessonNode(Epoch epoch, LessonSummary lesson) {
+            this.epochId = epoch.getId();
+            this.epochTitle = epoch.getTitle();
+            this.lesson = lesson;
+        }
+    }
+
+    /**
+     * Epoch item that creates its lesson items on first use, reading completion only for those
+     */
+    private final class EpochTreeItem extends TreeItem<LessonNode> {
+        private final Epoch epoch;
+        private boolean populated;
+
+        EpochTreeItem(Epoch epoch) {
+            super(new LessonNode(epoch, null));
+            this.epoch = epoch;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return epoch.getLessonSummaries().isEmpty();
+        }
+
+        @Override
+        public ObservableList<TreeItem<LessonNode>> getChildren() {
+            if (!populated) {
+                populated = true;
+                List<TreeItem<LessonNode>> lessonItems = new ArrayList<>();
+                for (LessonSummary summary : epoch.getLessonSummaries()) {
+                    LessonNode node = new LessonNode(epoch, summary);
+                    node.completed.set(progress.isLessonCompleted(summary.getId()));
+                    lessonNodes.put(summary.getId(), node);
+                    lessonItems.add(new TreeItem<>(node));
+                }
+                super.getChildren().setAll(lessonItems);
+            }
+            return super.getChildren();
+        }
+    }
+
+    private static final class LessonTreeCell extends TreeCell<LessonNode> {
+        @Override
+        protected void updateItem(LessonNode node, boolean empty) {
+            super.updateItem(node, empty);
+            textProperty().unbind();
+            if (empty || node == null) {
+                setText(null);
+            } else if (node.lesson == null) {
+                setText(node.epochTitle);
+            } else {
+                String title = node.lesson.getTitle();
+                textProperty().bind(Bindings.when(node.completed).then("✓ " + title).otherwise(title));
+            }
+        }
+    }
+
+    /**
+     * Shows a lesson's completion badge, if its epoch has been expanded
+     */
+    private void markLessonCompleted(String lessonId) {
+        LessonNode node = lessonNodes.get(lessonId);
+        if (node != null) {
+            node.completed.set(true);
+        }
+    }
+
     private String extractEpochId(String lessonId) {
         // Extract epoch ID from lesson ID (format: epoch-X-lesson-Y)
         // Example: "epoch-0-lesson-1" -> "epoch-0"
@@ -155,30 +254,75 @@ public class MainWindow {
     }
 
     private void loadLesson(Lesson lesson) {
+        LessonPanel previousPanel = currentPanel;
         this.currentLesson = lesson;
         this.currentEpochId = extractEpochId(lesson.getId());
+        lessonService.prefetch(currentEpochId);
 
         // Update progress
-        progress.setCurrentEpochId(currentEpochId);
-        progress.setCurrentLessonId(lesson.getId());
-
-        // Create lesson panel
-        LessonPanel lessonPanel = new LessonPanel(
-            lesson,
-            progress,
-            codeCompiler,
-            testRunner,
-            this::onChallengeCompleted,
-            this::onNextLesson
-        );
+        progressTracker.record(progress,
+            ProgressJournal.Event.currentLessonChanged(currentEpochId, lesson.getId()));
+
+        // Reuse the lesson's panel if it was built recently
+        LessonPanel lessonPanel = panelFor(lesson);
 
+        // Stop test runs of a lesson being left for good
+        if (previousPanel != null && previousPanel != lessonPanel && !panelCache.containsValue(previousPanel)) {
+            previousPanel.dispose();
+        }
+
+        currentPanel = lessonPanel;
         contentArea.setCenter(lessonPanel.getView());
         statusLabel.setText("Lesson: " + lesson.getTitle());
+
+        prepareNextLesson(currentEpochId, lesson.getId());
+    }
+
+    private LessonPanel panelFor(Lesson lesson) {
+        LessonPanel lessonPanel = panelCache.get(lesson.getId());
+        if (lessonPanel == null) {
+            lessonPanel = new LessonPanel(
+                lesson,
+                progress,
+                codeCompiler,
+                testRunner,
+                this::onChallengeCompleted,
+                this::onNextLesson
+            );
+            panelCache.put(lesson.getId(), lessonPanel);
+        }
+        return lessonPanel;
+    }
+
+    /**
+     * Loads the next lesson in the background, then builds its panel on the FX
+     * thread so that moving on to it only has to swap the view in
+     */
+    private void prepareNextLesson(String epochId, String lessonId) {
+        lessonService.prefetchNextLesson(epochId, lessonId).whenComplete((next, error) -> {
+            if (error != null) {
+                System.err.println("Failed to prefetch the lesson after " + lessonId + ": " + error.getMessage());
+                return;
+            }
+            if (next != null) {
+                Platform.runLater(() -> {
+                    // Only worth building while the learner is still on the lesson before it
+                    if (currentLesson != null && currentLesson.getId().equals(lessonId)
+                            && !panelCache.containsKey(next.getId())) {
+                        panelFor(next);
+                    }
+                });
+            }
+        });
     }
 
     private void onChallengeCompleted(String challengeId) {
         // Mark challenge as completed
-        progress.completeChallenge(currentLesson.getId(), challengeId);
+        progressTracker.record(progress,
+            ProgressJournal.Event.challengeCompleted(currentLesson.getId(), challengeId));
+
+        // The cached panel shows completion as of when it was built; the open one stays until left
+        panelCache.remove(currentLesson.getId());
 
         // Check if all challenges are completed
         long completedCount = currentLesson.getChallenges().stream()
@@ -186,16 +330,14 @@ public class MainWindow {
             .count();
 
         if (completedCount == currentLesson.getChallenges().size()) {
-            progress.completeLesson(
+            progressTracker.record(progress, ProgressJournal.Event.lessonCompleted(
                 currentLesson.getId(),
                 (int) completedCount,
                 currentLesson.getChallenges().size()
-            );
+            ));
+            markLessonCompleted(currentLesson.getId());
             showLessonCompletedDialog();
         }
-
-        // Save progress
-        progressTracker.saveProgress(progress);
     }
 
     private void onNextLesson() {
@@ -222,4 +364,17 @@ public class MainWindow {
     public void show() {
         stage.show();
     }
+
+    /**
+     * Stops running tests and shuts down the grading worker JVMs
+     */
+    public void close() {
+        for (LessonPanel panel : panelCache.values()) {
+            panel.dispose();
+        }
+        if (currentPanel != null) {
+            currentPanel.dispose();
+        }
+        workerPool.close();
+    }
 }
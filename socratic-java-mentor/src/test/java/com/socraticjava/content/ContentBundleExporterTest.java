@@ -0,0 +1,61 @@
+package com.socraticjava.content;
+
+import com.socraticjava.model.Epoch;
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentBundleExporterTest {
+
+    private static final List<Lesson> LESSONS = List.of(
+        new Lesson.Builder("epoch-0-lesson-1", "Lesson 0.1: Bits").estimatedMinutes(15).build(),
+        new Lesson.Builder("epoch-0-lesson-2", "Lesson 0.2: Bytes").estimatedMinutes(20).build());
+
+    @Test
+    void matchingSummariesPass() {
+        Epoch epoch = epoch(
+            new LessonSummary("epoch-0-lesson-1", "Lesson 0.1: Bits", 15),
+            new LessonSummary("epoch-0-lesson-2", "Lesson 0.2: Bytes", 20));
+
+        assertDoesNotThrow(() -> ContentBundleExporter.checkSummaries(List.of(epoch)));
+    }
+
+    @Test
+    void reportsEveryMismatch() {
+        Epoch epoch = epoch(
+            new LessonSummary("epoch-0-lesson-1", "Lesson 0.1: Bits and pieces", 15),
+            new LessonSummary("epoch-0-lesson-2", "Lesson 0.2: Bytes", 25));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> ContentBundleExporter.checkSummaries(List.of(epoch)));
+        assertTrue(e.getMessage().contains("Bits and pieces"));
+        assertTrue(e.getMessage().contains("25 minutes"));
+    }
+
+    @Test
+    void reportsSwappedOrMissingLessons() {
+        Epoch swapped = epoch(
+            new LessonSummary("epoch-0-lesson-2", "Lesson 0.2: Bytes", 20),
+            new LessonSummary("epoch-0-lesson-1", "Lesson 0.1: Bits", 15));
+        Epoch missing = epoch(new LessonSummary("epoch-0-lesson-1", "Lesson 0.1: Bits", 15));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> ContentBundleExporter.checkSummaries(List.of(swapped)));
+        assertTrue(e.getMessage().contains("id 'epoch-0-lesson-2'"));
+        e = assertThrows(IllegalStateException.class,
+            () -> ContentBundleExporter.checkSummaries(List.of(missing)));
+        assertTrue(e.getMessage().contains("1 summaries but 2 lessons"));
+        assertFalse(e.getMessage().contains("title"));
+    }
+
+    private static Epoch epoch(LessonSummary... summaries) {
+        return new Epoch("epoch-0", "Epoch 0", "Basics", 1, List.of(summaries), () -> LESSONS);
+    }
+}
@@ -0,0 +1,200 @@
+package com.socraticjava.content;
+
+import com.socraticjava.model.Challenge;
+import com.socraticjava.model.ChallengeType;
+import com.socraticjava.model.Epoch;
+import com.socraticjava.model.Lesson;
+import com.socraticjava.model.LessonSummary;
+import com.socraticjava.model.TestCase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentBundleTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lessonsRoundTrip() throws IOException {
+        List<Epoch> epochs = sampleEpochs();
+        ContentBundle bundle = writeAndOpen(epochs, 42L);
+
+        assertEquals(3, bundle.getLessonCount());
+        for (Epoch epoch : epochs) {
+            for (Lesson lesson : epoch.getLessons()) {
+                assertTrue(bundle.contains(lesson.getId()));
+                assertSameLesson(lesson, bundle.readLesson(lesson.getId()));
+            }
+        }
+    }
+
+    @Test
+    void catalogMatchesTheExportedEpochs() throws IOException {
+        List<Epoch> epochs = sampleEpochs();
+        List<ContentBundle.EpochRecord> catalog = writeAndOpen(epochs, 42L).readCatalog();
+
+        assertEquals(epochs.size(), catalog.size());
+        for (int i = 0; i < epochs.size(); i++) {
+            Epoch epoch = epochs.get(i);
+            ContentBundle.EpochRecord record = catalog.get(i);
+            assertEquals(epoch.getId(), record.getId());
+            assertEquals(epoch.getTitle(), record.getTitle());
+            assertEquals(epoch.getDescription(), record.getDescription());
+            assertEquals(epoch.getEstimatedHours(), record.getEstimatedHours());
+
+            List<Lesson> lessons = epoch.getLessons();
+            assertEquals(lessons.size(), record.getLessons().size());
+            for (int j = 0; j < lessons.size(); j++) {
+                LessonSummary summary = record.getLessons().get(j);
+                assertEquals(lessons.get(j).getId(), summary.getId());
+                assertEquals(lessons.get(j).getTitle(), summary.getTitle());
+                assertEquals(lessons.get(j).getEstimatedMinutes(), summary.getEstimatedMinutes());
+            }
+        }
+    }
+
+    @Test
+    void keepsTheContentStamp() throws IOException {
+        assertEquals(1_700_000_000_123L, writeAndOpen(sampleEpochs(), 1_700_000_000_123L).getContentStamp());
+        assertEquals(-1L, writeAndOpen(sampleEpochs(), -1L).getContentStamp());
+    }
+
+    @Test
+    void unknownLessonReadsAsNull() throws IOException {
+        ContentBundle bundle = writeAndOpen(sampleEpochs(), 0L);
+
+        assertFalse(bundle.contains("no-such-lesson"));
+        assertNull(bundle.readLesson("no-such-lesson"));
+    }
+
+    @Test
+    void emptyBundleRoundTrips() throws IOException {
+        ContentBundle bundle = writeAndOpen(List.of(), 7L);
+
+        assertEquals(0, bundle.getLessonCount());
+        assertTrue(bundle.readCatalog().isEmpty());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotBundles() throws IOException {
+        Path notBundle = tempDir.resolve("not-a-bundle.bin");
+        Files.write(notBundle, "SJX not a bundle".getBytes());
+
+        assertThrows(IOException.class, () -> ContentBundle.open(notBundle));
+    }
+
+    @Test
+    void rejectsOtherVersions() throws IOException {
+        Path file = tempDir.resolve("content.bundle");
+        ContentBundle.write(sampleEpochs(), file, 0L);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[3] = (byte) (ContentBundle.VERSION - 1);
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> ContentBundle.open(file));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    @Test
+    void reportsTruncationAsIOException() throws IOException {
+        Path file = tempDir.resolve("content.bundle");
+        ContentBundle.write(sampleEpochs(), file, 0L);
+        byte[] bytes = Files.readAllBytes(file);
+        // Index offset is the third int after the magic and version
+        int indexOffset = ByteBuffer.wrap(bytes).getInt(4 + 4 + 4);
+
+        // Only the index is read on open, so a cut into the catalog shows up when reading it
+        Path cutCatalog = tempDir.resolve("cut-catalog.bundle");
+        Files.write(cutCatalog, Arrays.copyOf(bytes, bytes.length - 10));
+        ContentBundle bundle = ContentBundle.open(cutCatalog);
+        assertThrows(IOException.class, bundle::readCatalog);
+
+        Path cutIndex = tempDir.resolve("cut-index.bundle");
+        Files.write(cutIndex, Arrays.copyOf(bytes, indexOffset + 6));
+        assertThrows(IOException.class, () -> ContentBundle.open(cutIndex));
+    }
+
+    private ContentBundle writeAndOpen(List<Epoch> epochs, long contentStamp) throws IOException {
+        Path file = tempDir.resolve("content-" + contentStamp + ".bundle");
+        ContentBundle.write(epochs, file, contentStamp);
+        return ContentBundle.open(file);
+    }
+
+    private static List<Epoch> sampleEpochs() {
+        Epoch first = new Epoch("epoch0", "Foundations", "How computers work", 4);
+        first.addLesson(new Lesson.Builder("epoch0-lesson01", "Bits and bytes")
+            .estimatedMinutes(20)
+            .addTheory("What is a bit?", "A bit is a 0 or a 1.\nEight of them make a byte.")
+            .addAnalogy("Light switches", "Each switch is on or off — like a bit ☺")
+            .addExample("Empty section", "")
+            .addChallenge(new Challenge.Builder("epoch0-lesson01-c1", "Count the bits", ChallengeType.MULTIPLE_CHOICE)
+                .description("How many bits are in a byte?")
+                .addMultipleChoiceOption("4")
+                .addMultipleChoiceOption("8")
+                .addMultipleChoiceOption("16")
+                .correctAnswer("8")
+                .build())
+            .build());
+        first.addLesson(new Lesson.Builder("epoch0-lesson02", "No content yet").build());
+
+        Epoch second = new Epoch("epoch1", "Java basics", null, 6);
+        second.addLesson(new Lesson.Builder("epoch1-lesson01", "Methods")
+            .addKeyPoint("Signatures", "A method has a name, parameters and a return type.")
+            .addChallenge(new Challenge.Builder("epoch1-lesson01-c1", "Add", ChallengeType.FREE_CODING)
+                .description("Write add(int, int)")
+                .starterCode("public class Solution {\n}")
+                .methodSignature("int add(int a, int b)")
+                .addTestCase(new TestCase("ints", new Object[] {1, 2}, 3, true))
+                .addTestCase(new TestCase("longs", new Object[] {Long.MAX_VALUE, -1L}, Long.MAX_VALUE - 1, false))
+                .addTestCase(new TestCase("mixed", new Object[] {2.5, true, 'x', "text", null}, null))
+                .addTestCase(new TestCase("System.out.println(1 + 1);", "2", true, "snippet"))
+                .build())
+            .build());
+
+        return List.of(first, second);
+    }
+
+    private static void assertSameLesson(Lesson expected, Lesson actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getEstimatedMinutes(), actual.getEstimatedMinutes());
+
+        assertEquals(expected.getContentSections().size(), actual.getContentSections().size());
+        for (int i = 0; i < expected.getContentSections().size(); i++) {
+            Lesson.ContentSection expectedSection = expected.getContentSections().get(i);
+            Lesson.ContentSection actualSection = actual.getContentSections().get(i);
+            assertEquals(expectedSection.getHeading(), actualSection.getHeading());
+            assertEquals(expectedSection.getType(), actualSection.getType());
+            assertEquals(expectedSection.getContent(), actualSection.getContent());
+        }
+
+        assertEquals(expected.getChallenges().size(), actual.getChallenges().size());
+        for (int i = 0; i < expected.getChallenges().size(); i++) {
+            Challenge expectedChallenge = expected.getChallenges().get(i);
+            Challenge actualChallenge = actual.getChallenges().get(i);
+            assertEquals(expectedChallenge.getId(), actualChallenge.getId());
+            assertEquals(expectedChallenge.getTitle(), actualChallenge.getTitle());
+            assertEquals(expectedChallenge.getDescription(), actualChallenge.getDescription());
+            assertEquals(expectedChallenge.getType(), actualChallenge.getType());
+            assertEquals(expectedChallenge.getStarterCode(), actualChallenge.getStarterCode());
+            assertEquals(expectedChallenge.getMethodSignature(), actualChallenge.getMethodSignature());
+            assertEquals(expectedChallenge.getCorrectAnswer(), actualChallenge.getCorrectAnswer());
+            assertEquals(expectedChallenge.getMultipleChoiceOptions(), actualChallenge.getMultipleChoiceOptions());
+            // TestCase.equals covers inputs, expected output, visibility and snippet code
+            assertEquals(expectedChallenge.getTestCases(), actualChallenge.getTestCases());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.socraticjava.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.socraticjava.model.Progress;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LessonProgressAdapterTest {
+
+    // Gson's reflective binding, which the adapter must stay compatible with
+    private final Gson reflective = new GsonBuilder()
+        .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+        .create();
+    private final LessonProgressAdapter adapter = new LessonProgressAdapter();
+
+    @Test
+    void writesSameJsonAsReflectiveGson() {
+        Progress.LessonProgress lesson =
+            new Progress.LessonProgress("epoch1-lesson02", 2, 3, LocalDateTime.of(2024, 2, 29, 23, 59, 59, 1_000));
+        lesson.addCompletedChallenge("c1");
+        lesson.addCompletedChallenge("c2");
+
+        assertEquals(JsonParser.parseString(reflective.toJson(lesson)),
+            JsonParser.parseString(adapter.toJson(lesson)));
+    }
+
+    @Test
+    void leavesOutNullFieldsLikeReflectiveGson() {
+        Progress.LessonProgress lesson = new Progress.LessonProgress(null, 0, 0, null);
+
+        assertEquals(JsonParser.parseString(reflective.toJson(lesson)),
+            JsonParser.parseString(adapter.toJson(lesson)));
+    }
+
+    @Test
+    void readsReflectiveGsonOutput() throws IOException {
+        Progress.LessonProgress lesson =
+            new Progress.LessonProgress("epoch3-lesson01", 1, 4, LocalDateTime.of(2023, 12, 31, 8, 15));
+        lesson.addCompletedChallenge("epoch3-lesson01-c4");
+
+        Progress.LessonProgress read = adapter.fromJson(reflective.toJson(lesson));
+
+        assertEquals(reflective.toJson(lesson), reflective.toJson(read));
+    }
+
+    @Test
+    void falseChallengeEntryIsSkippedWithoutLosingTheRest() throws IOException {
+        String json = "{\"lessonId\":\"l1\",\"challengesCompleted\":1,"
+            + "\"completedChallenges\":{\"a\":false,\"b\":true,\"c\":false},"
+            + "\"challengesTotal\":3,\"completedAt\":\"2024-01-02T03:04:05\"}";
+
+        Progress.LessonProgress read = adapter.fromJson(json);
+        Progress.LessonProgress expected = reflective.fromJson(json, Progress.LessonProgress.class);
+
+        assertFalse(read.isChallengeCompleted("a"));
+        assertTrue(read.isChallengeCompleted("b"));
+        assertFalse(read.isChallengeCompleted("c"));
+        assertEquals(expected.isChallengeCompleted("b"), read.isChallengeCompleted("b"));
+        assertEquals("l1", read.getLessonId());
+        assertEquals(1, read.getChallengesCompleted());
+        assertEquals(3, read.getChallengesTotal());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), read.getCompletedAt());
+    }
+
+    @Test
+    void nonBooleanChallengeEntriesAreSkipped() throws IOException {
+        String json = "{\"completedChallenges\":{\"a\":null,\"b\":\"yes\",\"c\":{\"x\":1},\"d\":true},"
+            + "\"challengesTotal\":4}";
+
+        Progress.LessonProgress read = adapter.fromJson(json);
+
+        assertEquals(1, read.getCompletedChallenges().size());
+        assertTrue(read.isChallengeCompleted("d"));
+        assertEquals(4, read.getChallengesTotal());
+    }
+
+    @Test
+    void unknownFieldsAndNullValuesAreIgnored() throws IOException {
+        String json = "{\"lessonId\":null,\"extra\":[1,2,{\"y\":null}],\"challengesTotal\":2,\"completedAt\":null}";
+
+        Progress.LessonProgress read = adapter.fromJson(json);
+
+        assertNull(read.getLessonId());
+        assertNull(read.getCompletedAt());
+        assertEquals(2, read.getChallengesTotal());
+        assertNull(adapter.fromJson("null"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.socraticjava.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.socraticjava.model.Progress;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressAdapterTest {
+
+    // Gson's reflective binding, which the adapter must stay compatible with
+    private final Gson reflective = new GsonBuilder()
+        .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+        .create();
+    private final ProgressAdapter adapter = new ProgressAdapter();
+
+    @Test
+    void writesSameJsonAsReflectiveGson() {
+        Progress progress = sampleProgress();
+
+        assertEquals(JsonParser.parseString(reflective.toJson(progress)),
+            JsonParser.parseString(adapter.toJson(progress)));
+    }
+
+    @Test
+    void writesSameJsonAsReflectiveGsonForFreshProgress() {
+        Progress progress = new Progress();
+
+        assertEquals(JsonParser.parseString(reflective.toJson(progress)),
+            JsonParser.parseString(adapter.toJson(progress)));
+    }
+
+    @Test
+    void readsReflectiveGsonOutput() throws IOException {
+        Progress progress = sampleProgress();
+
+        Progress read = adapter.fromJson(reflective.toJson(progress));
+
+        assertEquals(JsonParser.parseString(reflective.toJson(progress)),
+            JsonParser.parseString(reflective.toJson(read)));
+    }
+
+    @Test
+    void keepsSavedLastAccessedWhenCurrentLessonComesFirst() throws IOException {
+        // setCurrentLessonId touches lastAccessed, whatever order the fields are in
+        String json = "{\"currentLessonId\":\"l2\",\"lastAccessed\":\"2020-05-05T05:05:05\",\"totalTimeMinutes\":7}";
+
+        Progress read = adapter.fromJson(json);
+
+        assertEquals("l2", read.getCurrentLessonId());
+        assertEquals(LocalDateTime.of(2020, 5, 5, 5, 5, 5), read.getLastAccessed());
+        assertEquals(7, read.getTotalTimeMinutes());
+    }
+
+    @Test
+    void falseChallengeEntryDoesNotDerailTheFollowingLessons() throws IOException {
+        String json = "{\"completedLessons\":{"
+            + "\"l1\":{\"lessonId\":\"l1\",\"completedChallenges\":{\"a\":false,\"b\":true},\"challengesTotal\":2},"
+            + "\"l2\":{\"lessonId\":\"l2\",\"completedChallenges\":{\"c\":true},\"challengesTotal\":1}},"
+            + "\"totalTimeMinutes\":12}";
+
+        Progress read = adapter.fromJson(json);
+
+        assertFalse(read.isChallengeCompleted("l1", "a"));
+        assertTrue(read.isChallengeCompleted("l1", "b"));
+        assertTrue(read.isChallengeCompleted("l2", "c"));
+        assertEquals(12, read.getTotalTimeMinutes());
+    }
+
+    @Test
+    void nullLastAccessedIsKept() throws IOException {
+        Progress read = adapter.fromJson("{\"lastAccessed\":null,\"completedLessons\":{}}");
+
+        assertNull(read.getLastAccessed());
+        assertNull(adapter.fromJson("null"));
+    }
+
+    private static Progress sampleProgress() {
+        Progress progress = new Progress();
+        progress.setCurrentEpochId("epoch1");
+        progress.setCurrentLessonId("epoch1-lesson02");
+        progress.setLastAccessed(LocalDateTime.of(2024, 6, 1, 12, 0, 30, 250_000_000));
+        progress.addTimeMinutes(42);
+        progress.completeLesson("epoch1-lesson01", 2, 2, LocalDateTime.of(2024, 5, 30, 18, 45));
+        progress.completeChallenge("epoch1-lesson01", "epoch1-lesson01-c1");
+        progress.completeChallenge("epoch1-lesson01", "epoch1-lesson01-c2");
+        progress.getCompletedLessons().put("epoch1-lesson02",
+            new Progress.LessonProgress("epoch1-lesson02", 0, 3, null));
+        return progress;
+    }
+}
@@ -0,0 +1,180 @@
+package com.socraticjava.service;
+
+import com.socraticjava.model.Progress;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressCodecTest {
+
+    @Test
+    void roundTripKeepsEveryField() throws IOException {
+        Progress progress = new Progress();
+        progress.setCurrentEpochId("epoch2");
+        progress.setCurrentLessonId("epoch2-lesson03");
+        progress.setLastAccessed(LocalDateTime.of(2024, 3, 14, 15, 9, 26, 535_897_932));
+        progress.addTimeMinutes(95);
+        progress.completeLesson("epoch1-lesson01", 2, 3, LocalDateTime.of(2024, 3, 1, 9, 0));
+        progress.completeChallenge("epoch1-lesson01", "epoch1-lesson01-c1");
+        progress.completeChallenge("epoch1-lesson01", "epoch1-lesson01-c2");
+        progress.completeLesson("epoch1-lesson02", 1, 1, LocalDateTime.of(2024, 3, 2, 10, 30, 0, 123_456_000));
+        progress.completeChallenge("epoch1-lesson02", "epoch1-lesson01-c1");
+        progress.getCompletedLessons().put("epoch2-lesson01",
+            new Progress.LessonProgress("epoch2-lesson01", 0, 4, null));
+
+        assertSameProgress(progress, roundTrip(progress));
+    }
+
+    @Test
+    void emptyProgressRoundTrips() throws IOException {
+        Progress progress = new Progress();
+        progress.setLastAccessed(null);
+
+        Progress decoded = roundTrip(progress);
+
+        assertNull(decoded.getCurrentEpochId());
+        assertNull(decoded.getCurrentLessonId());
+        assertNull(decoded.getLastAccessed());
+        assertEquals(0, decoded.getTotalTimeMinutes());
+        assertTrue(decoded.getCompletedLessons().isEmpty());
+    }
+
+    @Test
+    void valuesNeedingMultiByteVarintsRoundTrip() throws IOException {
+        Progress progress = new Progress();
+        progress.addTimeMinutes(Integer.MAX_VALUE);
+        // Over 127 strings, so the table size and later references need two bytes
+        for (int i = 0; i < 300; i++) {
+            String lessonId = "lesson-" + i;
+            progress.completeLesson(lessonId, i, Integer.MAX_VALUE, LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(i));
+            progress.completeChallenge(lessonId, "challenge-" + i);
+        }
+        // Non-ASCII and longer than 127 UTF-8 bytes
+        String longId = "λ-".repeat(100);
+        progress.setCurrentLessonId(longId);
+
+        Progress decoded = roundTrip(progress);
+
+        assertEquals(longId, decoded.getCurrentLessonId());
+        assertSameProgress(progress, decoded);
+    }
+
+    @Test
+    void timestampsFarApartRoundTrip() throws IOException {
+        Progress progress = new Progress();
+        // Each timestamp is stored as a zigzag delta from the previous one, so
+        // jump from the latest possible time to the earliest and back
+        progress.setLastAccessed(LocalDateTime.MAX);
+        progress.completeLesson("a", 1, 1, LocalDateTime.MIN);
+        progress.completeLesson("b", 1, 1, LocalDateTime.of(1970, 1, 1, 0, 0));
+        progress.completeLesson("c", 1, 1, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999));
+        progress.completeLesson("d", 1, 1, LocalDateTime.MAX);
+
+        assertSameProgress(progress, roundTrip(progress));
+    }
+
+    @Test
+    void onlyCompletedChallengesAreStored() throws IOException {
+        Progress progress = new Progress();
+        progress.completeChallenge("lesson", "done");
+
+        Progress.LessonProgress lesson = roundTrip(progress).getCompletedLessons().get("lesson");
+
+        assertTrue(lesson.isChallengeCompleted("done"));
+        assertFalse(lesson.isChallengeCompleted("other"));
+        assertEquals(1, lesson.getCompletedChallenges().size());
+    }
+
+    @Test
+    void recognisesOnlyItsOwnHeader() {
+        Progress progress = new Progress();
+        assertTrue(ProgressCodec.isBinary(ProgressCodec.encode(progress)));
+        assertFalse(ProgressCodec.isBinary("{\"totalTimeMinutes\":0}".getBytes()));
+        assertFalse(ProgressCodec.isBinary(new byte[] {'S', 'J', 'P'}));
+        assertThrows(IOException.class, () -> ProgressCodec.decode("{}".getBytes()));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] data = ProgressCodec.encode(new Progress());
+        data[3] = (byte) (ProgressCodec.VERSION + 1);
+
+        IOException e = assertThrows(IOException.class, () -> ProgressCodec.decode(data));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        Progress progress = new Progress();
+        progress.setCurrentLessonId("lesson");
+        progress.completeLesson("lesson", 1, 2, LocalDateTime.of(2024, 5, 6, 7, 8, 9, 10));
+        progress.completeChallenge("lesson", "challenge");
+        byte[] data = ProgressCodec.encode(progress);
+
+        for (int length = 4; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(IOException.class, () -> ProgressCodec.decode(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsVarintLongerThanSixtyFourBits() {
+        byte[] data = new byte[4 + 10];
+        data[0] = 'S';
+        data[1] = 'J';
+        data[2] = 'P';
+        data[3] = ProgressCodec.VERSION;
+        Arrays.fill(data, 4, data.length, (byte) 0xFF);
+
+        IOException e = assertThrows(IOException.class, () -> ProgressCodec.decode(data));
+        assertTrue(e.getMessage().contains("varint"));
+    }
+
+    @Test
+    void rejectsCountAboveIntRange() {
+        // Table size of 2^31, the smallest value that does not fit an int
+        byte[] data = {'S', 'J', 'P', ProgressCodec.VERSION, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08};
+
+        IOException e = assertThrows(IOException.class, () -> ProgressCodec.decode(data));
+        assertTrue(e.getMessage().contains("out of range"));
+    }
+
+    @Test
+    void rejectsStringReferenceOutsideTable() {
+        // Empty table, then a current epoch reference to entry 1
+        byte[] data = {'S', 'J', 'P', ProgressCodec.VERSION, 0, 2};
+
+        IOException e = assertThrows(IOException.class, () -> ProgressCodec.decode(data));
+        assertTrue(e.getMessage().contains("reference"));
+    }
+
+    private static Progress roundTrip(Progress progress) throws IOException {
+        return ProgressCodec.decode(ProgressCodec.encode(progress));
+    }
+
+    private static void assertSameProgress(Progress expected, Progress actual) {
+        assertEquals(expected.getCurrentEpochId(), actual.getCurrentEpochId());
+        assertEquals(expected.getCurrentLessonId(), actual.getCurrentLessonId());
+        assertEquals(expected.getLastAccessed(), actual.getLastAccessed());
+        assertEquals(expected.getTotalTimeMinutes(), actual.getTotalTimeMinutes());
+        assertEquals(expected.getCompletedLessons().keySet(), actual.getCompletedLessons().keySet());
+        for (Map.Entry<String, Progress.LessonProgress> entry : expected.getCompletedLessons().entrySet()) {
+            Progress.LessonProgress expectedLesson = entry.getValue();
+            Progress.LessonProgress actualLesson = actual.getCompletedLessons().get(entry.getKey());
+            assertEquals(expectedLesson.getLessonId(), actualLesson.getLessonId());
+            assertEquals(expectedLesson.getChallengesCompleted(), actualLesson.getChallengesCompleted());
+            assertEquals(expectedLesson.getChallengesTotal(), actualLesson.getChallengesTotal());
+            assertEquals(expectedLesson.getCompletedAt(), actualLesson.getCompletedAt());
+            assertEquals(expectedLesson.getCompletedChallenges(), actualLesson.getCompletedChallenges());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.socraticjava.ui;
+
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JavaHighlighterTest {
+
+    // Style of a character that no pass has styled since it was edited
+    private static final String STALE = "?";
+
+    private static final List<String> SOURCE = List.of(
+        "package demo;",
+        "",
+        "/**",
+        " * Adds \"numbers\" */",
+        "public class Sum {",
+        "    @Override",
+        "    public String toString() {",
+        "        String text = \"\"\"",
+        "            total: \"\"\" + 42;",
+        "        char quote = '\\'';",
+        "        return text + \"a\\\"b\"; // done",
+        "    }",
+        "}"
+    );
+
+    // Lines the random edits draw from; several of them open or close a multi-line construct
+    private static final List<String> FRAGMENTS = List.of(
+        "int x = 1;",
+        "/* open",
+        "close */ int y;",
+        "\"\"\"",
+        "text \"\"\" + 2;",
+        "String s = \"a\\\"b\";",
+        "// line comment /* not a block",
+        "@Deprecated static void f() {}",
+        "",
+        "char c = '\\'';",
+        "long hex = 0x1F + 3.5e2 + 1_000L;",
+        "   */",
+        "/* one-line */ return null;"
+    );
+
+    @Test
+    void stylesEachKindOfToken() {
+        List<String> text = List.of("@Override public int f() { return 42; } // \"not a string\"");
+        List<List<String>> styles = highlightFully(text);
+
+        assertEquals("annotation", styleAt(text, styles, 0, "@Override"));
+        assertEquals("keyword", styleAt(text, styles, 0, "public"));
+        assertEquals("keyword", styleAt(text, styles, 0, "int"));
+        assertEquals("", styleAt(text, styles, 0, "f()"));
+        assertEquals("number", styleAt(text, styles, 0, "42"));
+        assertEquals("comment", styleAt(text, styles, 0, "\"not a string\""));
+    }
+
+    @Test
+    void multiLineConstructsCarryOverLineBreaks() {
+        List<List<String>> styles = highlightFully(SOURCE);
+
+        assertEquals(Collections.nCopies(SOURCE.get(3).length(), "comment"), styles.get(3));
+        assertEquals("string", styleAt(SOURCE, styles, 8, "total"));
+        assertEquals("number", styleAt(SOURCE, styles, 8, "42"));
+        assertEquals("keyword", styleAt(SOURCE, styles, 4, "class"));
+    }
+
+    @Test
+    void unchangedTextNeedsNoRestyling() {
+        JavaHighlighter.Result first = highlightAll(SOURCE);
+        JavaHighlighter.Result second = JavaHighlighter.highlight(first.getLines(), new ArrayList<>(SOURCE),
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        assertNull(second.getSpans());
+        assertEquals(SOURCE.size(), second.getLines().size());
+    }
+
+    @Test
+    void editInsideOneLineRestylesOnlyThatLine() {
+        JavaHighlighter.Result first = highlightAll(SOURCE);
+        List<String> edited = new ArrayList<>(SOURCE);
+        edited.set(9, "        char quote = 'q';");
+
+        JavaHighlighter.Result second = JavaHighlighter.highlight(first.getLines(), edited, 9, edited.size() - 10);
+
+        assertEquals(9, second.getFirstParagraph());
+        assertEquals(edited.get(9).length(), second.getSpans().length());
+    }
+
+    @Test
+    void openingBlockCommentRestylesUntilTheStateSettles() {
+        JavaHighlighter.Result first = highlightAll(SOURCE);
+        List<String> edited = new ArrayList<>(SOURCE);
+        // Everything up to the "*/" on line 3 becomes comment
+        edited.set(0, "/* package demo;");
+
+        JavaHighlighter.Result second = JavaHighlighter.highlight(first.getLines(), edited, 0, edited.size() - 1);
+
+        // Lines 0-2 now start or end inside the comment; line 3 already started inside it
+        assertEquals(0, second.getFirstParagraph());
+        int expectedLength = edited.get(0).length() + 1 + edited.get(1).length() + 1 + edited.get(2).length();
+        assertEquals(expectedLength, second.getSpans().length());
+    }
+
+    @Test
+    void insertedCopyOfANeighbouringLineIsStyled() {
+        List<String> text = new ArrayList<>(List.of("int a;", "@Deprecated", "int b;"));
+        List<List<String>> styles = highlightFully(text);
+        JavaHighlighter.Result first = highlightAll(text);
+
+        // Paste a second "@Deprecated" above the first; the pasted line has no styles yet
+        text.add(1, "@Deprecated");
+        styles.add(1, stale("@Deprecated"));
+        JavaHighlighter.Result second = JavaHighlighter.highlight(first.getLines(), text, 1, 2);
+        apply(second, text, styles);
+
+        assertEquals(highlightFully(text), styles);
+    }
+
+    @Test
+    void incrementalPassesMatchFullPasses() {
+        Random random = new Random(20240229);
+        List<String> text = new ArrayList<>(SOURCE);
+        List<List<String>> styles = highlightFully(text);
+        List<JavaHighlighter.Line> lines = highlightAll(text).getLines();
+        int editedFrom = Integer.MAX_VALUE;
+        int untouchedTail = Integer.MAX_VALUE;
+
+        for (int step = 0; step < 5_000; step++) {
+            // Apply the same edit to the text and to the styles, tracking the
+            // edited range the way the editor does
+            int index = random.nextInt(text.size());
+            String fragment = FRAGMENTS.get(random.nextInt(FRAGMENTS.size()));
+            int edit = random.nextInt(4);
+            if (edit == 0 && text.size() > 1) {
+                text.remove(index);
+                styles.remove(index);
+                index = Math.min(index, text.size() - 1);
+            } else if (edit == 1) {
+                text.add(index, fragment);
+                styles.add(index, stale(fragment));
+            } else {
+                String line = edit == 2 ? fragment : text.get(index) + " " + fragment;
+                text.set(index, line);
+                styles.set(index, stale(line));
+            }
+            editedFrom = Math.min(editedFrom, index);
+            untouchedTail = Math.min(untouchedTail, text.size() - 1 - index);
+            // Several edits between passes, as when typing outpaces the highlighter
+            if (random.nextInt(3) != 0) {
+                continue;
+            }
+
+            JavaHighlighter.Result result =
+                JavaHighlighter.highlight(lines, new ArrayList<>(text), editedFrom, untouchedTail);
+            apply(result, text, styles);
+            lines = result.getLines();
+            editedFrom = Integer.MAX_VALUE;
+            untouchedTail = Integer.MAX_VALUE;
+
+            assertEquals(highlightFully(text), styles, "after step " + step + ": " + text);
+        }
+    }
+
+    private static JavaHighlighter.Result highlightAll(List<String> text) {
+        return JavaHighlighter.highlight(Collections.emptyList(), text, 0, 0);
+    }
+
+    private static List<List<String>> highlightFully(List<String> text) {
+        List<List<String>> styles = new ArrayList<>();
+        for (String line : text) {
+            styles.add(stale(line));
+        }
+        apply(highlightAll(text), text, styles);
+        return styles;
+    }
+
+    /**
+     * Writes a pass's spans over the per-character styles of the lines it re-lexed
+     */
+    private static void apply(JavaHighlighter.Result result, List<String> text, List<List<String>> styles) {
+        StyleSpans<Collection<String>> spans = result.getSpans();
+        if (spans == null) {
+            return;
+        }
+        List<String> characters = new ArrayList<>();
+        for (StyleSpan<Collection<String>> span : spans) {
+            String style = span.getStyle().isEmpty() ? "" : span.getStyle().iterator().next();
+            characters.addAll(Collections.nCopies(span.getLength(), style));
+        }
+
+        int position = 0;
+        for (int line = result.getFirstParagraph(); ; line++) {
+            int length = text.get(line).length();
+            styles.set(line, new ArrayList<>(characters.subList(position, position + length)));
+            position += length;
+            if (position == characters.size()) {
+                return;
+            }
+            assertEquals("", characters.get(position), "line break style");
+            position++;
+        }
+    }
+
+    private static List<String> stale(String line) {
+        return new ArrayList<>(Collections.nCopies(line.length(), STALE));
+    }
+
+    private static String styleAt(List<String> text, List<List<String>> styles, int line, String token) {
+        return styles.get(line).get(text.get(line).indexOf(token));
+    }
+}